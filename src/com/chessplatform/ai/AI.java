@@ -27,4 +27,16 @@ public interface AI {
      * 设置思考时间限制（毫秒）
      */
     void setTimeLimit(long milliseconds);
+    
+    /**
+     * 对手思考期间在后台继续搜索，默认不支持
+     */
+    default void startPondering(Game game) {
+    }
+    
+    /**
+     * 停止后台搜索
+     */
+    default void stopPondering() {
+    }
 }
\ No newline at end of file
@@ -4,23 +4,64 @@ package com.chessplatform.ai.mcts;
 import com.chessplatform.ai.AbstractAI;
 import com.chessplatform.core.*;
 import com.chessplatform.model.*;
+import com.chessplatform.util.IntList;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class MCTSAI extends AbstractAI {
-    private static final int DEFAULT_ITERATIONS = 1000;
+    private static final long serialVersionUID = 2382190064756434404L;  // 与旧存档保持一致
+    private static final int DEFAULT_ITERATIONS = 100000;   // 迭代次数上限，通常先到思考时间限制
+    private static final int EARLY_STOP_CHECK_INTERVAL = 64;   // 每个线程每隔多少次迭代检查一次能否提前结束
+    private static final int[][] DIRECTIONS = {{1,0}, {0,1}, {1,1}, {1,-1}};
     private int iterations;
+    private int threads;   // 搜索线程数，0 表示使用全部处理器（旧存档中没有该字段，读取后为0）
+    private ParallelMode parallelMode;   // 旧存档中为 null，按共享搜索树处理
+    
+    // 上一次搜索的树，下一次思考时从中找到当前局面对应的节点继续使用
+    private transient MCTSNode lastRoot;
+    private transient int lastMoveCount;
+    
+    // 对手思考期间的后台搜索
+    private transient Thread ponderThread;
+    private transient SearchBudget ponderBudget;
     
     public MCTSAI() {
         super("MCTS AI", 3);
         this.iterations = DEFAULT_ITERATIONS;
+        this.parallelMode = ParallelMode.TREE;
     }
     
     public void setIterations(int iterations) {
         this.iterations = iterations;
     }
     
+    public void setThreads(int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("线程数不能为负数");
+        }
+        this.threads = threads;
+    }
+    
+    public int getThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+    
+    public void setParallelMode(ParallelMode parallelMode) {
+        this.parallelMode = parallelMode;
+    }
+    
+    public ParallelMode getParallelMode() {
+        return parallelMode != null ? parallelMode : ParallelMode.TREE;
+    }
+    
     @Override
     public Point think(Game game) {
+        // 后台搜索的树留在 lastRoot 中，下面按对手的走法找到对应的子树
+        stopPondering();
+        
         List<Point> validMoves = getValidMoves(game);
         if (validMoves == null || validMoves.isEmpty()) {
             return null;
@@ -31,109 +72,381 @@ public class MCTSAI extends AbstractAI {
             return validMoves.get(0);
         }
         
-        // 创建根节点
-        MCTSNode root = new MCTSNode(game.copy(), null, null);
+        // 整个搜索只取一次轻量局面，之后沿路径落子、迭代结束后逐步撤销
+        Position state = game.toPosition();
+        int workers = Math.min(getThreads(), iterations);
+        if (workers > 1 && getParallelMode() == ParallelMode.ROOT) {
+            lastRoot = null;
+            Point best = searchRootParallel(state, workers);
+            return best != null ? best : fallbackMove(state, validMoves);
+        }
+        
+        // 优先沿用上一次搜索中对应当前局面的子树，找不到时创建根节点
+        List<Move> history = game.getMoveHistory();
+        MCTSNode root = findReusableRoot(state, history);
+        if (root == null) {
+            root = new MCTSNode(state, null, null);
+        }
+        lastRoot = root;
+        lastMoveCount = history.size();
+        
+        SearchBudget budget = new SearchBudget(iterations, timeLimit);
+        if (workers <= 1) {
+            search(root, state, budget, random, true);
+        } else {
+            searchTreeParallel(root, state, budget, workers, true);
+        }
+        
+        // 选择最佳移动
+        return getBestMove(root, state, validMoves);
+    }
+    
+    /**
+     * 从 game 的当前局面（对手走棋）开始在后台搜索，直到 stopPondering 或下一次 think；
+     * 对手走棋后 think 沿对手的走法找到对应的子树，后台积累的统计继续使用
+     * 根并行不保留搜索树，不做后台搜索
+     */
+    @Override
+    public synchronized void startPondering(Game game) {
+        stopPondering();
+        if (game.isGameOver() || getParallelMode() == ParallelMode.ROOT) {
+            return;
+        }
+        
+        // 局面和走棋记录在调用线程中取出，后台线程不访问 game
+        Position state = game.toPosition();
+        List<Move> history = game.getMoveHistory();
+        MCTSNode reused = findReusableRoot(state, history);
+        MCTSNode root = (reused != null) ? reused : new MCTSNode(state, null, null);
+        lastRoot = root;
+        lastMoveCount = history.size();
+        
+        SearchBudget budget = new SearchBudget(iterations, 0);
+        int workers = Math.min(getThreads(), iterations);
+        ponderThread = new Thread(() -> {
+            try {
+                if (workers <= 1) {
+                    search(root, state, budget, random, false);
+                } else {
+                    searchTreeParallel(root, state, budget, workers, false);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("后台搜索失败: " + e.getMessage());
+            }
+        }, "mcts-ponder");
+        ponderThread.setDaemon(true);
+        ponderBudget = budget;
+        ponderThread.start();
+    }
+    
+    @Override
+    public synchronized void stopPondering() {
+        if (ponderThread == null) {
+            return;
+        }
+        ponderBudget.stop();
+        joinAll(new Thread[] {ponderThread});
+        ponderThread = null;
+        ponderBudget = null;
+    }
+    
+    /**
+     * 从上一次搜索的根节点出发，沿之后实际走出的几步（自己的走法和对手的应对）向下查找，
+     * 找到的节点成为新的根，其余部分交给垃圾回收，已有的统计继续使用
+     * 悔棋、换对局等情况下走棋记录对不上，再用局面哈希确认一次
+     */
+    private MCTSNode findReusableRoot(Position state, List<Move> history) {
+        MCTSNode node = lastRoot;
+        if (node == null || history.size() < lastMoveCount) {
+            return null;
+        }
+        
+        for (int i = lastMoveCount; i < history.size() && node != null; i++) {
+            Move move = history.get(i);
+            if (!move.isNormalMove()) {
+                return null;   // 虚着不在搜索树中
+            }
+            node = node.findChild(Point.of(move.getRow(), move.getCol()));
+        }
+        if (node == null || node.getHash() != state.getHash() || node.isGameOver()) {
+            return null;
+        }
+        
+        node.detach();
+        return node;
+    }
+    
+    /**
+     * 树并行：workers 个线程共享同一棵树，各自持有局面副本和随机数生成器，
+     * 节点统计用原子操作更新，路径上的虚拟损失让其他线程避开正在搜索的分支
+     */
+    private void searchTreeParallel(MCTSNode root, Position state, SearchBudget budget, int workers,
+                                    boolean earlyStop) {
+        Runnable[] tasks = new Runnable[workers];
+        tasks[0] = () -> search(root, state, budget, random, earlyStop);
+        for (int i = 1; i < workers; i++) {
+            Position copy = state.copy();
+            Random workerRandom = new Random(random.nextLong());
+            tasks[i] = () -> search(root, copy, budget, workerRandom, earlyStop);
+        }
+        runWorkers(tasks, budget::stop);
+    }
+    
+    /**
+     * 根并行：workers 棵互不相关的搜索树，各用一份局面副本、独立的随机种子和迭代次数，
+     * 线程之间没有共享的可变状态；结束后按走法合并根节点子节点的访问次数和胜场
+     * 单棵树的最佳走法已定并不代表合并结果已定，所以各棵树只按迭代次数和时间停止
+     */
+    private Point searchRootParallel(Position state, int workers) {
+        MCTSNode[] roots = new MCTSNode[workers];
+        SearchBudget[] budgets = new SearchBudget[workers];
+        Runnable[] tasks = new Runnable[workers];
+        for (int i = 0; i < workers; i++) {
+            Position copy = (i == 0) ? state : state.copy();
+            Random workerRandom = (i == 0) ? random : new Random(random.nextLong());
+            MCTSNode root = new MCTSNode(copy, null, null);
+            SearchBudget budget = new SearchBudget(iterations / workers + (i < iterations % workers ? 1 : 0),
+                    timeLimit);
+            roots[i] = root;
+            budgets[i] = budget;
+            tasks[i] = () -> search(root, copy, budget, workerRandom, false);
+        }
+        runWorkers(tasks, () -> {
+            for (SearchBudget budget : budgets) {
+                budget.stop();
+            }
+        });
+        
+        // 合并各棵树根节点的子节点统计：[访问次数, 胜场]
+        Map<Point, double[]> merged = new HashMap<>();
+        for (MCTSNode root : roots) {
+            for (Map.Entry<Point, MCTSNode.NodeStats> entry : root.getChildStats().entrySet()) {
+                double[] total = merged.computeIfAbsent(entry.getKey(), k -> new double[2]);
+                total[0] += entry.getValue().visits;
+                total[1] += entry.getValue().wins;
+            }
+        }
+        
+        // 访问次数最多的走法，相同时取胜场多的
+        Point best = null;
+        double[] bestTotal = null;
+        for (Map.Entry<Point, double[]> entry : merged.entrySet()) {
+            double[] total = entry.getValue();
+            if (bestTotal == null || total[0] > bestTotal[0]
+                    || (total[0] == bestTotal[0] && total[1] > bestTotal[1])) {
+                best = entry.getKey();
+                bestTotal = total;
+            }
+        }
+        return best;
+    }
+    
+    // tasks[0] 在当前线程执行，其余各开一个线程；任一任务失败时调用 stop 让其他任务尽快结束
+    private void runWorkers(Runnable[] tasks, Runnable stop) {
+        Thread[] pool = new Thread[tasks.length - 1];
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        for (int i = 0; i < pool.length; i++) {
+            Runnable task = tasks[i + 1];
+            pool[i] = new Thread(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    stop.run();
+                }
+            }, "mcts-worker-" + i);
+            pool[i].setDaemon(true);
+            pool[i].start();
+        }
         
-        // MCTS迭代
-        for (int i = 0; i < iterations; i++) {
+        try {
+            tasks[0].run();
+        } catch (RuntimeException e) {
+            stop.run();
+            throw e;
+        } finally {
+            joinAll(pool);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+    
+    private void joinAll(Thread[] pool) {
+        boolean interrupted = false;
+        for (Thread worker : pool) {
+            while (true) {
+                try {
+                    worker.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // 反复执行 选择-扩展-模拟-回传，直到 budget 用完；earlyStop 时最佳走法已定就提前结束
+    private void search(MCTSNode root, Position state, SearchBudget budget, Random rnd, boolean earlyStop) {
+        Deque<UndoToken> path = new ArrayDeque<>();
+        IntList moves = new IntList(cellCount(state));
+        int count = 0;
+        
+        while (budget.tryAcquire()) {
+            root.addVirtualLoss();
+            
             // 1. 选择
-            MCTSNode node = select(root);
+            MCTSNode node = select(root, state, path);
             
             // 2. 扩展
             if (!node.isTerminal()) {
-                node = expand(node);
+                node = expand(node, state, path);
             }
             
             // 3. 模拟
-            double result = simulate(node);
+            double result = simulate(node, state, path, moves, rnd);
             
             // 4. 回传
             backpropagate(node, result);
+            
+            // 恢复到根节点局面
+            while (!path.isEmpty()) {
+                state.undo(path.pop());
+            }
+            
+            if (earlyStop && ++count % EARLY_STOP_CHECK_INTERVAL == 0 && isDecided(root, budget)) {
+                budget.stop();
+            }
         }
-        
-        // 选择最佳移动
-        return getBestMove(root);
     }
     
-    private MCTSNode select(MCTSNode node) {
+    /**
+     * 最终按访问次数选择走法：访问最多的子节点领先第二名的次数超过剩余可用的迭代次数时，
+     * 结果已经不会改变，继续搜索只是浪费时间
+     */
+    private boolean isDecided(MCTSNode root, SearchBudget budget) {
+        int best = 0;
+        int second = 0;
+        for (MCTSNode child : root.children) {
+            int visits = child.getVisits();
+            if (visits > best) {
+                second = best;
+                best = visits;
+            } else if (visits > second) {
+                second = visits;
+            }
+        }
+        return best - second > budget.estimateRemaining();
+    }
+    
+    private MCTSNode select(MCTSNode node, Position state, Deque<UndoToken> path) {
         while (!node.hasUntriedMoves() && node.hasChildren()) {
             node = node.selectChild();
+            node.addVirtualLoss();
+            path.push(state.play(node.getMove().getX(), node.getMove().getY()));
         }
         return node;
     }
     
-    private MCTSNode expand(MCTSNode node) {
-        List<Point> untriedMoves = node.getUntriedMoves();
-        if (untriedMoves.isEmpty()) {
+    private MCTSNode expand(MCTSNode node, Position state, Deque<UndoToken> path) {
+        Point move = node.takeUntriedMove();
+        if (move == null) {
             return node;
         }
         
-        Point move = untriedMoves.get(random.nextInt(untriedMoves.size()));
-        Game nextState = simulateMove(node.getGameState(), move);
-        return node.addChild(nextState, move);
+        path.push(state.play(move.getX(), move.getY()));
+        MCTSNode child = node.addChild(state, move);
+        child.addVirtualLoss();
+        return child;
     }
     
-    private double simulate(MCTSNode node) {
-        Game gameState = node.getGameState().copy();
-        
-        // 随机模拟到游戏结束
-        while (!gameState.isGameOver()) {
-            List<Point> moves = gameState.getValidMoves();
+    private int cellCount(Position state) {
+        return state.getBoard().getSize() * state.getBoard().getSize();
+    }
+    
+    private double simulate(MCTSNode node, Position state, Deque<UndoToken> path, IntList moves,
+                            Random rnd) {
+        int maxSimulationDepth = cellCount(state) * 2; // 防止无限循环
+        
+        // 随机模拟到游戏结束，走法用打包的 int 表示，不产生 Point
+        for (int depth = 0; depth < maxSimulationDepth && !state.isGameOver(); depth++) {
+            state.getCandidateMoves(moves);
+            UndoToken token;
             if (moves.isEmpty()) {
-                gameState.pass();
-                continue;
+                // 无子可下时虚着
+                token = state.pass();
+                if (token == null) {
+                    break;
+                }
+            } else {
+                int randomMove = moves.get(rnd.nextInt(moves.size()));
+                token = state.play(PackedMove.row(randomMove), PackedMove.col(randomMove));
             }
-            
-            Point randomMove = moves.get(random.nextInt(moves.size()));
-            gameState.makeMove(randomMove.getX(), randomMove.getY());
-        }
-        
-        // 返回模拟结果
-        if (gameState.getWinner() == null) {
-            return 0.5; // 平局
+            path.push(token);
         }
         
-        // 判断输赢（简化）
-        return gameState.getWinner().getColor() == node.getPlayerColor() ? 1.0 : 0.0;
+        // 返回模拟结果（以叶节点走棋方为准）
+        return node.evaluateResult(state);
     }
     
     private void backpropagate(MCTSNode node, double result) {
+        PieceColor leafColor = node.getPlayerColor();
         while (node != null) {
-            node.update(result);
-            node = node.getParent();
+            // 节点的胜率按走到该节点的一方（即父节点走棋方）统计
+            MCTSNode parent = node.getParent();
+            if (parent == null || parent.getPlayerColor() == leafColor) {
+                node.update(result);
+            } else {
+                node.update(1.0 - result);
+            }
+            node = parent;
         }
     }
     
-    private Point getBestMove(MCTSNode root) {
-        return root.getBestChild().getMove();
+    private Point getBestMove(MCTSNode root, Position state, List<Point> validMoves) {
+        MCTSNode best = root.getBestChild();
+        return best != null ? best.getMove() : fallbackMove(state, validMoves);
     }
     
-    private Game simulateMove(Game game, Point move) {
-        Game copy = game.copy();
-        copy.makeMove(move.getX(), move.getY());
-        return copy;
+    // 时间或迭代次数不够展开任何子节点时，取排序最靠前的候选走法
+    private Point fallbackMove(Position state, List<Point> validMoves) {
+        List<Point> ranked = state.getRankedCandidates(1);
+        return ranked.isEmpty() ? validMoves.get(0) : ranked.get(0);
     }
     
     // MCTS节点类完整实现
+    // 多个搜索线程同时读写：统计量用原子变量，子节点列表写时复制，未尝试走法用原子下标取出
     private class MCTSNode {
-        private Game gameState;
         private MCTSNode parent;
-        private Point move;
-        private List<MCTSNode> children;
-        private List<Point> untriedMoves;
-        private int visits;
-        private double wins;
-        private PieceColor playerColor; // 记录当前节点的玩家颜色
-        
-        public MCTSNode(Game gameState, MCTSNode parent, Point move) {
-            this.gameState = gameState;
+        private final Point move;
+        private final List<MCTSNode> children;
+        private final int[] untriedMoves;          // 打包走法
+        private final AtomicInteger untriedCount;
+        private final AtomicInteger visits = new AtomicInteger();
+        private final AtomicInteger virtualLoss = new AtomicInteger();   // 正在经过该节点的搜索数
+        private final AtomicLong winBits = new AtomicLong();   // 胜场数（double 的位表示）
+        private final PieceColor playerColor; // 记录当前节点的玩家颜色
+        private final boolean gameOver;
+        private final long hash;              // 节点对应局面的哈希，复用子树时核对
+        
+        // 节点不再持有游戏副本，只在创建时读取一次局面信息
+        public MCTSNode(Position gameState, MCTSNode parent, Point move) {
             this.parent = parent;
             this.move = move;
-            this.children = new ArrayList<>();
-            this.untriedMoves = new ArrayList<>(gameState.getValidMoves());
-            this.visits = 0;
-            this.wins = 0;
-            this.playerColor = gameState.getCurrentPlayer().getColor();
+            this.children = new CopyOnWriteArrayList<>();
+            // 候选走法按优先级排列，倒序存放后从末尾取出
+            List<Point> ranked = gameState.getRankedCandidates(0);
+            this.untriedMoves = new int[ranked.size()];
+            for (int i = 0; i < ranked.size(); i++) {
+                untriedMoves[ranked.size() - 1 - i] = PackedMove.of(ranked.get(i));
+            }
+            this.untriedCount = new AtomicInteger(untriedMoves.length);
+            this.playerColor = gameState.getSideToMove();
+            this.gameOver = gameState.isGameOver();
+            this.hash = gameState.getHash();
         }
         
         /**
@@ -143,15 +456,18 @@ public class MCTSAI extends AbstractAI {
             MCTSNode selected = null;
             double bestValue = Double.NEGATIVE_INFINITY;
             double explorationFactor = Math.sqrt(2.0); // UCB公式中的C值
+            int parentVisits = visits.get() + virtualLoss.get();
             
             for (MCTSNode child : children) {
-                if (child.visits == 0) {
+                // 虚拟损失计为访问但不计胜场，正在被搜索的分支暂时显得更差
+                int childVisits = child.visits.get() + child.virtualLoss.get();
+                if (childVisits == 0) {
                     return child; // 优先选择未探索的节点
                 }
                 
                 // UCB公式：选择价值最高的节点
-                double ucbValue = child.wins / child.visits + 
-                    explorationFactor * Math.sqrt(Math.log(this.visits) / child.visits);
+                double ucbValue = child.getWins() / childVisits + 
+                    explorationFactor * Math.sqrt(Math.log(parentVisits) / childVisits);
                 
                 if (ucbValue > bestValue) {
                     bestValue = ucbValue;
@@ -163,87 +479,30 @@ public class MCTSAI extends AbstractAI {
         }
         
         /**
-         * 扩展节点：从未尝试的走法中随机选择一个创建子节点
+         * 按优先级取出下一个未尝试的走法
          */
-        public MCTSNode expand() {
-            if (untriedMoves.isEmpty()) {
-                return this; // 没有可扩展的走法
+        public Point takeUntriedMove() {
+            int index = untriedCount.decrementAndGet();
+            if (index < 0) {
+                return null; // 没有可扩展的走法
             }
-            
-            // 随机选择一个未尝试的走法
-            int randomIndex = random.nextInt(untriedMoves.size());
-            Point moveToTry = untriedMoves.remove(randomIndex);
-            
-            // 创建新状态
-            Game nextState = simulateMove(gameState, moveToTry);
-            
-            // 创建子节点
-            MCTSNode child = new MCTSNode(nextState, this, moveToTry);
-            children.add(child);
-            
-            return child;
+            return PackedMove.toPoint(untriedMoves[index]);
         }
 
-        private  MCTSNode addChild(Game gameState, Point move) {
+        private  MCTSNode addChild(Position gameState, Point move) {
             // 创建子节点
             MCTSNode child = new MCTSNode(gameState, this, move);
             children.add(child);
             return child;
         }
         
-        /**
-         * 模拟（随机对局直到结束）
-         */
-        public double simulate() {
-            Game simulationState = gameState.copy();
-            int maxSimulationDepth = 100; // 防止无限循环
-            
-            for (int depth = 0; depth < maxSimulationDepth; depth++) {
-                if (simulationState.isGameOver()) {
-                    break;
-                }
-                
-                List<Point> validMoves = simulationState.getValidMoves();
-                if (validMoves.isEmpty()) {
-                    simulationState.pass();
-                    continue;
-                }
-                
-                // 随机选择走法
-                Point randomMove = validMoves.get(random.nextInt(validMoves.size()));
-                simulationState.makeMove(randomMove.getX(), randomMove.getY());
-            }
-            
-            // 计算胜率
-            return evaluateResult(simulationState);
-        }
-        
-        /**
-         * 回传结果到根节点
-         */
-        public void backpropagate(double result) {
-            MCTSNode node = this;
-            while (node != null) {
-                node.visits++;
-                node.wins += result;
-                
-                // 对于对手的节点，胜率要取反
-                if (node.parent != null && 
-                    node.parent.playerColor != node.playerColor) {
-                    result = 1.0 - result;
-                }
-                
-                node = node.parent;
-            }
-        }
-        
         // ========== 辅助方法 ==========
         
         /**
          * 评估游戏结果
          * @return 1.0: 当前玩家胜利, 0.0: 对手胜利, 0.5: 平局
          */
-        private double evaluateResult(Game gameState) {
+        private double evaluateResult(Position gameState) {
             if (!gameState.isGameOver()) {
                 // 游戏未结束，使用启发式评估
                 return evaluateHeuristic(gameState);
@@ -254,13 +513,13 @@ public class MCTSAI extends AbstractAI {
             }
             
             // 判断胜负
-            return (gameState.getWinner().getColor() == this.playerColor) ? 1.0 : 0.0;
+            return (gameState.getWinner() == this.playerColor) ? 1.0 : 0.0;
         }
         
         /**
          * 启发式评估（当游戏未结束时使用）
          */
-        private double evaluateHeuristic(Game gameState) {
+        private double evaluateHeuristic(Position gameState) {
             // 简化的五子棋评估函数
             if (gameState.getGameType() != GameType.GOMOKU) {
                 return 0.5; // 对于非五子棋游戏，返回中性值
@@ -289,14 +548,11 @@ public class MCTSAI extends AbstractAI {
         /**
          * 评估玩家威胁（五子棋专用）
          */
-        private double evaluatePlayerThreat(Game gameState, PieceColor color) {
+        private double evaluatePlayerThreat(Position gameState, PieceColor color) {
             double score = 0;
             Board board = gameState.getBoard();
             int size = board.getSize();
             
-            // 检查四个方向
-            int[][] directions = {{1,0}, {0,1}, {1,1}, {1,-1}};
-            
             for (int i = 0; i < size; i++) {
                 for (int j = 0; j < size; j++) {
                     if (!board.getPiece(i, j).isEmpty()) {
@@ -304,7 +560,7 @@ public class MCTSAI extends AbstractAI {
                     }
                     
                     // 检查这个空位对指定颜色的价值
-                    for (int[] dir : directions) {
+                    for (int[] dir : DIRECTIONS) {
                         int potential = countPotential(board, i, j, color, dir[0], dir[1]);
                         score += Math.pow(2, potential); // 连子越多，指数级加分
                     }
@@ -347,54 +603,49 @@ public class MCTSAI extends AbstractAI {
             return blocked ? count : count * 2; // 未被阻挡的连子价值更高
         }
         
-        /**
-         * 模拟一步走法（不改变原始状态）
-         */
-        private Game simulateMove(Game originalGame, Point move) {
-            Game copy = originalGame.copy();
-            
-            try {
-                // 检查是否有效走法
-                List<Point> validMoves = copy.getValidMoves();
-                boolean isValid = false;
-                for (Point validMove : validMoves) {
-                    if (validMove.getX() == move.getX() && validMove.getY() == move.getY()) {
-                        isValid = true;
-                        break;
-                    }
-                }
-                
-                if (isValid) {
-                    copy.makeMove(move.getX(), move.getY());
-                }
-            } catch (Exception e) {
-                // 如果走法失败，返回原始状态
-                System.err.println("模拟走法失败: " + e.getMessage());
-            }
-            
-            return copy;
-        }
-        
         // ========== 查询方法 ==========
         
         public boolean isTerminal() {
-            return gameState.isGameOver() || untriedMoves.isEmpty();
+            return gameOver || !hasUntriedMoves();
         }
         
         public boolean hasUntriedMoves() {
-            return !untriedMoves.isEmpty();
+            return untriedCount.get() > 0;
         }
         
         public boolean hasChildren() {
             return !children.isEmpty();
         }
         
-        public List<Point> getUntriedMoves() {
-            return new ArrayList<>(untriedMoves);
+        public MCTSNode findChild(Point move) {
+            for (MCTSNode child : children) {
+                if (child.move.equals(move)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+        
+        // 成为新的根节点，回传到此为止，原来的父节点和兄弟节点不再被引用
+        public void detach() {
+            parent = null;
         }
         
-        public Game getGameState() {
-            return gameState;
+        public boolean isGameOver() {
+            return gameOver;
+        }
+        
+        public long getHash() {
+            return hash;
+        }
+        
+        public List<Point> getUntriedMoves() {
+            int count = Math.max(untriedCount.get(), 0);
+            List<Point> moves = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                moves.add(PackedMove.toPoint(untriedMoves[i]));
+            }
+            return moves;
         }
         
         public Point getMove() {
@@ -406,15 +657,16 @@ public class MCTSAI extends AbstractAI {
         }
         
         public int getVisits() {
-            return visits;
+            return visits.get();
         }
         
         public double getWins() {
-            return wins;
+            return Double.longBitsToDouble(winBits.get());
         }
         
         public double getWinRate() {
-            return visits > 0 ? wins / visits : 0;
+            int n = getVisits();
+            return n > 0 ? getWins() / n : 0;
         }
         
         public PieceColor getPlayerColor() {
@@ -434,8 +686,9 @@ public class MCTSAI extends AbstractAI {
             int maxVisits = -1;
             
             for (MCTSNode child : children) {
-                if (child.visits > maxVisits) {
-                    maxVisits = child.visits;
+                int childVisits = child.getVisits();
+                if (childVisits > maxVisits) {
+                    maxVisits = childVisits;
                     bestChild = child;
                 }
             }
@@ -468,12 +721,21 @@ public class MCTSAI extends AbstractAI {
             return stats;
         }
         
+        public void addVirtualLoss() {
+            virtualLoss.incrementAndGet();
+        }
+        
         /**
-         * 更新节点统计
+         * 更新节点统计，同时撤掉选择时加上的虚拟损失
          */
         public void update(double result) {
-            this.visits++;
-            this.wins += result;
+            visits.incrementAndGet();
+            long current;
+            do {
+                current = winBits.get();
+            } while (!winBits.compareAndSet(current,
+                    Double.doubleToRawLongBits(Double.longBitsToDouble(current) + result)));
+            virtualLoss.decrementAndGet();
         }
         
         /**
@@ -500,7 +762,7 @@ public class MCTSAI extends AbstractAI {
         @Override
         public String toString() {
             return String.format("MCTSNode{move=%s, visits=%d, wins=%.1f, winRate=%.2f}", 
-                move, visits, wins, getWinRate());
+                move, getVisits(), getWins(), getWinRate());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+// ai/mcts/ParallelMode.java
+package com.chessplatform.ai.mcts;
+
+/**
+ * 多线程搜索的方式
+ */
+public enum ParallelMode {
+    TREE("共享搜索树"),        // 所有线程搜索同一棵树，用虚拟损失分散线程
+    ROOT("独立搜索后合并");     // 每个线程一棵树，最后合并根节点子节点的统计
+
+    private final String description;
+
+    ParallelMode(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,71 @@
+// ai/mcts/SearchBudget.java
+package com.chessplatform.ai.mcts;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次搜索的预算，可由多个搜索线程共享
+ * 迭代次数和截止时间先到者为准，也可以随时由 stop() 提前结束
+ */
+class SearchBudget {
+    private final int iterations;
+    private final AtomicInteger remaining;
+    private final long startTime;       // System.nanoTime()
+    private final long deadline;        // 0 表示不限时
+    private volatile boolean stopped;
+
+    SearchBudget(int iterations, long timeLimitMillis) {
+        this.iterations = Math.max(iterations, 0);
+        this.remaining = new AtomicInteger(this.iterations);
+        this.startTime = System.nanoTime();
+        this.deadline = (timeLimitMillis > 0) ? startTime + timeLimitMillis * 1_000_000L : 0;
+    }
+
+    /**
+     * 申请一次迭代，预算用完或已停止时返回 false
+     */
+    boolean tryAcquire() {
+        if (stopped) {
+            return false;
+        }
+        if (deadline != 0 && System.nanoTime() - deadline >= 0) {
+            stopped = true;
+            return false;
+        }
+        if (remaining.getAndDecrement() <= 0) {
+            stopped = true;
+            return false;
+        }
+        return true;
+    }
+
+    void stop() {
+        stopped = true;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    int getCompleted() {
+        return iterations - Math.max(remaining.get(), 0);
+    }
+
+    /**
+     * 按目前的速度估计剩余时间内还能完成的迭代次数，不超过剩余的迭代次数
+     */
+    long estimateRemaining() {
+        long left = Math.max(remaining.get(), 0);
+        if (deadline == 0) {
+            return left;
+        }
+        long now = System.nanoTime();
+        long elapsed = now - startTime;
+        if (elapsed <= 0) {
+            return left;
+        }
+        double rate = (double) getCompleted() / elapsed;
+        long byTime = (long) Math.ceil(rate * Math.max(deadline - now, 0));
+        return Math.min(left, byTime);
+    }
+}
@@ -7,6 +7,8 @@ import com.chessplatform.model.*;
 import java.util.*;
 
 public class GomokuRuleAI extends AbstractAI {
+    private static final long serialVersionUID = -4293856945022715356L;  // 与旧存档保持一致
+    private static final int[][] DIRECTIONS = {{1,0}, {0,1}, {1,1}, {1,-1}};
     
     public GomokuRuleAI() {
         super("规则AI", 2);
@@ -14,8 +16,9 @@ public class GomokuRuleAI extends AbstractAI {
     
     @Override
     public Point think(Game game) {
-        List<Point> validMoves = getValidMoves(game);
-        if (validMoves == null || validMoves.isEmpty()) {
+        // 只评估已有棋子附近的候选位置
+        List<Point> validMoves = game.toPosition().getRankedCandidates(0);
+        if (validMoves.isEmpty()) {
             return null;
         }
         
@@ -73,9 +76,7 @@ public class GomokuRuleAI extends AbstractAI {
     
     private int countPotentialLines(Game game, Point move, PieceColor color) {
         int count = 0;
-        int[][] directions = {{1,0}, {0,1}, {1,1}, {1,-1}};
-        
-        for (int[] dir : directions) {
+        for (int[] dir : DIRECTIONS) {
             if (checkDirectionPotential(game, move, color, dir[0], dir[1])) {
                 count++;
             }
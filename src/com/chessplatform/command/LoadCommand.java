@@ -2,27 +2,30 @@
 package com.chessplatform.command;
 
 import com.chessplatform.core.Game;
-import com.chessplatform.memento.GameMemento;
 import com.chessplatform.util.FileUtil;
 
 import java.io.IOException;
 
+/**
+ * 从存档读取一局新的对局；存档的棋类由文件决定，因此不是恢复到已有对局中，
+ * 执行成功后通过 getGame() 取得读入的对局，undo 后 getGame() 回到原来的对局
+ */
 public class LoadCommand implements Command {
     private Game game;
     private String filename;
-    private GameMemento previousState;
+    private Game previousGame;
     
-    public LoadCommand(Game game, String filename) {
-        this.game = game;
+    public LoadCommand(Game currentGame, String filename) {
+        this.game = currentGame;
         this.filename = filename;
     }
     
     @Override
     public boolean execute() {
         try {
-            previousState = game.saveToMemento();
-            GameMemento loadedState = FileUtil.loadGame(filename);
-            game.restoreFromMemento(loadedState);
+            Game loadedGame = FileUtil.loadGame(filename);
+            previousGame = game;
+            game = loadedGame;
             return true;
         } catch (IOException | ClassNotFoundException e) {
             System.err.println("加载游戏失败: " + e.getMessage());
@@ -32,13 +35,18 @@ public class LoadCommand implements Command {
     
     @Override
     public void undo() {
-        if (previousState != null) {
-            game.restoreFromMemento(previousState);
+        if (previousGame != null) {
+            game = previousGame;
+            previousGame = null;
         }
     }
     
+    public Game getGame() {
+        return game;
+    }
+    
     @Override
     public String getDescription() {
         return "从文件加载游戏: " + filename;
     }
-}
\ No newline at end of file
+}
@@ -21,10 +21,16 @@ public class MoveCommand implements Command {
     
     @Override
     public boolean execute() {
-        backup = game.saveToMemento();
+        // 关键帧在落子前保存完整状态，每一步都在落子后记录这一步的增量
+        GameMemento keyframe = caretaker.isKeyframeDue() ? game.saveToMemento() : null;
         boolean success = game.makeMove(row, col);
         if (success) {
-            caretaker.saveMemento(backup);
+            backup = game.saveMoveMemento();
+            if (keyframe != null) {
+                keyframe.attachDelta(backup);
+                backup = keyframe;
+            }
+            caretaker.saveMemento(backup, game.getUndoLog());
         }
         return success;
     }
@@ -2,33 +2,54 @@
 package com.chessplatform.command;
 
 import com.chessplatform.core.Game;
-import com.chessplatform.memento.GameMemento;
 import com.chessplatform.util.FileUtil;
+import com.chessplatform.util.SaveService;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public class SaveCommand implements Command {
     private Game game;
     private String filename;
-    private GameMemento savedState;
+    private SaveService saveService;      // 为 null 时在当前线程同步保存
+    private CompletableFuture<String> completion;
     
     public SaveCommand(Game game, String filename) {
+        this(game, filename, null);
+    }
+    
+    public SaveCommand(Game game, String filename, SaveService saveService) {
         this.game = game;
         this.filename = filename;
+        this.saveService = saveService;
     }
     
+    /**
+     * 异步保存时只表示已提交，写入结果通过 getCompletion() 获得
+     */
     @Override
     public boolean execute() {
+        if (saveService != null) {
+            completion = saveService.submit(game, filename);
+            return !completion.isCompletedExceptionally();
+        }
+        
+        completion = new CompletableFuture<>();
         try {
-            savedState = game.saveToMemento();
-            FileUtil.saveGame(savedState, filename);
+            FileUtil.saveGame(game, filename);
+            completion.complete(filename);
             return true;
         } catch (IOException e) {
+            completion.completeExceptionally(e);
             System.err.println("保存游戏失败: " + e.getMessage());
             return false;
         }
     }
     
+    public CompletableFuture<String> getCompletion() {
+        return completion;
+    }
+    
     @Override
     public void undo() {
         // 保存操作不可撤销
@@ -38,4 +59,4 @@ public class SaveCommand implements Command {
     public String getDescription() {
         return "保存游戏到文件: " + filename;
     }
-}
\ No newline at end of file
+}
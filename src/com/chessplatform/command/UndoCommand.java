@@ -2,13 +2,15 @@
 package com.chessplatform.command;
 
 import com.chessplatform.core.Game;
+import com.chessplatform.core.UndoToken;
 import com.chessplatform.memento.GameCaretaker;
 import com.chessplatform.memento.GameMemento;
+import java.util.List;
 
 public class UndoCommand implements Command {
     private Game game;
     private GameCaretaker caretaker;
-    private GameMemento undoneState;
+    private List<UndoToken> undoneMoves;  // 被撤销的走法，重做时按顺序重新走一遍
     
     public UndoCommand(Game game, GameCaretaker caretaker) {
         this.game = game;
@@ -21,10 +23,20 @@ public class UndoCommand implements Command {
             return false;
         }
         
-        undoneState = game.saveToMemento();
         GameMemento lastState = caretaker.getLastMemento();
         if (lastState != null) {
-            game.restoreFromMemento(lastState);
+            try {
+                game.restoreFromMemento(lastState);
+            } catch (IllegalStateException e) {
+                // 增量无法应用时退回到最近的关键帧
+                GameMemento keyframe = caretaker.getLastKeyframe();
+                if (keyframe == null) {
+                    return false;
+                }
+                game.restoreFromMemento(keyframe);
+            }
+            // 整体恢复的局面没有撤销记录，这时无法重做
+            undoneMoves = game.getUndoLog().takeUndone();
             return true;
         }
         return false;
@@ -32,14 +44,25 @@ public class UndoCommand implements Command {
     
     @Override
     public void undo() {
-        if (undoneState != null) {
-            game.restoreFromMemento(undoneState);
-            caretaker.saveMemento(undoneState);
+        if (undoneMoves == null) {
+            return;
         }
+        for (UndoToken move : undoneMoves) {
+            if (move == null) {
+                break;  // 认输不重做
+            }
+            boolean replayed = move.isPass()
+                    ? game.pass()
+                    : new MoveCommand(game, caretaker, move.getRow(), move.getCol()).execute();
+            if (!replayed) {
+                break;
+            }
+        }
+        undoneMoves = null;
     }
     
     @Override
     public String getDescription() {
         return "悔棋";
     }
-}
\ No newline at end of file
+}
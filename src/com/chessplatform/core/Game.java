@@ -3,6 +3,7 @@ package com.chessplatform.core;
 
 import com.chessplatform.memento.GameMemento;
 import com.chessplatform.model.Board;
+import com.chessplatform.model.Move;
 import com.chessplatform.model.PieceColor;
 import com.chessplatform.model.Player;  // 新增导入
 import com.chessplatform.model.Point;
@@ -17,6 +18,14 @@ public interface Game extends Serializable {
     boolean resign(Player player);
     boolean undo();
     
+    // 搜索用的可撤销走法：不记录录像、不触发事件，move 为 null 表示虚着，非法时返回 null
+    UndoToken applyMove(Point move);
+    void undoMove(UndoToken token);
+    
+    // 与搜索局面互相转换：toPosition 返回独立副本，setPosition 只替换局面，不改动走棋记录和录像
+    Position toPosition();
+    void setPosition(Position position);
+    
     // 游戏状态查询
     boolean isValidMove(int row, int col);
     boolean isGameOver();
@@ -24,14 +33,18 @@ public interface Game extends Serializable {
     Player getCurrentPlayer();
     Board getBoard();
     GameType getGameType();
+    long getPositionHash();  // 棋盘 Zobrist 哈希与走棋方组合，用于识别局面
     
     // 存档相关
     GameMemento saveToMemento();
+    GameMemento saveMoveMemento();  // 最近一步的增量备忘录，须在 makeMove 成功后立即调用
     void restoreFromMemento(GameMemento memento);
+    UndoLog getUndoLog();  // 与走棋记录对应的撤销记录，悔棋后可从中取出被撤销的走法用于重做
     
     // 游戏信息
     String getGameStatus();
     int getMoveCount();
+    List<Move> getMoveHistory();  // 当前局面的走棋记录，悔棋撤销的步骤不在其中
     
     // 新增：录像相关方法
     GameRecorder getGameRecorder();
@@ -50,6 +63,8 @@ public interface Game extends Serializable {
     boolean isAIMove();  // 当前是否为AI走棋
     void setAITypeForPlayer(Player player, AIType aiType);
     AIType getAITypeForPlayer(Player player);
+    GameMode getGameMode();
+    void setGameMode(GameMode mode, AIType blackAI, AIType whiteAI);
     
     // 新增游戏复制方法（用于AI模拟）
     Game copy();
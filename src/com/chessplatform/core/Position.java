@@ -0,0 +1,35 @@
+// core/Position.java
+package com.chessplatform.core;
+
+import com.chessplatform.model.Board;
+import com.chessplatform.model.PieceColor;
+import com.chessplatform.model.Point;
+import com.chessplatform.util.IntList;
+import java.util.List;
+
+/**
+ * 搜索用的轻量局面
+ * 只包含棋盘、走棋方、劫点/虚着计数和哈希，不含录像、玩家和事件，
+ * 复制时只拷贝棋盘数组，供 AI 模拟对局使用
+ */
+public interface Position {
+    GameType getGameType();
+    Board getBoard();
+    PieceColor getSideToMove();
+    boolean isGameOver();
+    PieceColor getWinner();  // 未结束或平局时为 null
+    long getHash();          // 棋盘 Zobrist 哈希与走棋方组合
+    
+    boolean isValidMove(int row, int col);
+    List<Point> getValidMoves();
+    List<Point> getCandidateMoves();              // 搜索用的候选走法，不保证顺序
+    List<Point> getRankedCandidates(int limit);   // 按优先级从高到低，limit 不大于0时返回全部
+    void getCandidateMoves(IntList moves);        // 清空后写入打包的候选走法（见 PackedMove），不分配对象
+    
+    // 调用方需保证落子合法；不允许虚着的棋类 pass() 返回 null
+    UndoToken play(int row, int col);
+    UndoToken pass();
+    void undo(UndoToken token);
+    
+    Position copy();
+}
@@ -0,0 +1,103 @@
+// core/UndoLog.java
+package com.chessplatform.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 与游戏 moveHistory 一一对应的撤销记录
+ * 第 i 个记录对应第 base + i 步；认输等不改变局面的步骤记为 null。
+ * 读档、整体恢复或回放后局面与记录不再对应，需要 reset 到当前步数。
+ * 被撤销的记录暂存起来供重做，有新的走法记入时清空。
+ * 悔棋记录淘汰旧备忘录时用 trimBefore 丢弃更早的记录，使内存随之受限
+ */
+public class UndoLog {
+    private static final int COMPACT_THRESHOLD = 64;
+    private static final long SLOT_SIZE = 8;
+
+    private final List<UndoToken> tokens = new ArrayList<>();
+    private final List<UndoToken> undone = new ArrayList<>();
+    private int first;   // tokens 中第一个有效记录的位置，之前的已被裁掉
+    private int base;
+    private long usedBytes;
+
+    public void reset(int moveCount) {
+        tokens.clear();
+        undone.clear();
+        first = 0;
+        base = moveCount;
+        usedBytes = 0;
+    }
+
+    public void push(UndoToken token) {
+        tokens.add(token);
+        usedBytes += sizeOf(token);
+        undone.clear();
+    }
+
+    public UndoToken pop() {
+        if (tokens.size() == first) {
+            throw new IllegalStateException("没有可撤销的记录");
+        }
+        UndoToken token = tokens.remove(tokens.size() - 1);
+        usedBytes -= sizeOf(token);
+        undone.add(token);
+        return token;
+    }
+
+    public UndoToken peek() {
+        return tokens.size() == first ? null : tokens.get(tokens.size() - 1);
+    }
+
+    /**
+     * 第 moveCount 步（从0开始）的记录是否就是 token，即能否从当前局面撤销回该步之前
+     */
+    public boolean contains(int moveCount, UndoToken token) {
+        int index = moveCount - base;
+        return token != null && index >= 0 && index < tokens.size() - first
+                && tokens.get(first + index) == token;
+    }
+
+    /**
+     * 丢弃第 moveCount 步之前的记录，之后撤销到更早的局面只能整体恢复
+     */
+    public void trimBefore(int moveCount) {
+        int drop = Math.min(moveCount - base, tokens.size() - first);
+        if (drop <= 0) {
+            return;
+        }
+        for (int i = first; i < first + drop; i++) {
+            usedBytes -= sizeOf(tokens.get(i));
+            tokens.set(i, null);
+        }
+        first += drop;
+        base += drop;
+        // 裁掉的部分过半时整体前移，均摊下来每条记录只搬动常数次
+        if (first >= COMPACT_THRESHOLD && first * 2 >= tokens.size()) {
+            tokens.subList(0, first).clear();
+            first = 0;
+        }
+    }
+
+    /**
+     * 估算当前记录占用的字节数
+     */
+    public long estimateSize() {
+        return usedBytes;
+    }
+
+    /**
+     * 取出上次撤销掉的走法，按原来的走棋顺序排列
+     */
+    public List<UndoToken> takeUndone() {
+        List<UndoToken> result = new ArrayList<>(undone);
+        Collections.reverse(result);
+        undone.clear();
+        return result;
+    }
+
+    private static long sizeOf(UndoToken token) {
+        return token == null ? SLOT_SIZE : SLOT_SIZE + token.estimateSize();
+    }
+}
@@ -0,0 +1,89 @@
+// core/UndoToken.java
+package com.chessplatform.core;
+
+import com.chessplatform.model.PieceColor;
+import com.chessplatform.model.Point;
+import java.util.Arrays;
+
+/**
+ * 一步可撤销走法的记录
+ * 只保存这一步改变的内容：落子位置、被提/被翻转的棋子以及走棋前的状态，
+ * 撤销时按变化量还原，不需要复制整个游戏
+ */
+public class UndoToken {
+    private final int row;              // 虚着时为 -1
+    private final int col;
+    private final PieceColor side;      // 走这一步的一方
+    private final int previousPasses;
+    private final Point previousKoPoint;
+    private final boolean previousGameOver;
+    private final PieceColor previousWinner;
+
+    private int[] changed = new int[4]; // 被提/被翻转的棋子，row * size + col
+    private int changedCount;
+
+    public UndoToken(int row, int col, PieceColor side, int previousPasses, Point previousKoPoint,
+                     boolean previousGameOver, PieceColor previousWinner) {
+        this.row = row;
+        this.col = col;
+        this.side = side;
+        this.previousPasses = previousPasses;
+        this.previousKoPoint = previousKoPoint;
+        this.previousGameOver = previousGameOver;
+        this.previousWinner = previousWinner;
+    }
+
+    public void addChanged(int index) {
+        if (changedCount == changed.length) {
+            changed = Arrays.copyOf(changed, changedCount * 2);
+        }
+        changed[changedCount++] = index;
+    }
+
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    public int getChanged(int i) {
+        return changed[i];
+    }
+
+    public boolean isPass() {
+        return row < 0;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public PieceColor getSide() {
+        return side;
+    }
+
+    public int getPreviousPasses() {
+        return previousPasses;
+    }
+
+    public Point getPreviousKoPoint() {
+        return previousKoPoint;
+    }
+
+    public boolean wasGameOver() {
+        return previousGameOver;
+    }
+
+    public PieceColor getPreviousWinner() {
+        return previousWinner;
+    }
+
+    /**
+     * 估算这条记录占用的字节数
+     */
+    public long estimateSize() {
+        return 64 + 4L * changed.length;
+    }
+}
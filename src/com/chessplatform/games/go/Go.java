@@ -7,6 +7,8 @@ import com.chessplatform.core.events.*;
 import com.chessplatform.memento.GameMemento;
 import com.chessplatform.model.*;
 import com.chessplatform.record.GameRecorder;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
 
@@ -24,6 +26,10 @@ public class Go extends Subject implements Game, Serializable {
     private int consecutivePasses;
     private Point lastKoPoint;
     
+    // 规则状态，棋盘与 board 为同一对象；不写入存档，读取时由上面的字段重建
+    private transient GoPosition position;
+    private transient UndoLog undoLog;   // 与 moveHistory 对应的撤销记录，供增量备忘录使用
+    
     // 录像和回放相关字段
     private GameRecorder gameRecorder;
     private ReplayMode replayMode;
@@ -43,6 +49,8 @@ public class Go extends Subject implements Game, Serializable {
         this.moveHistory = new Stack<>();
         this.consecutivePasses = 0;
         this.lastKoPoint = null;
+        this.position = new GoPosition(board, PieceColor.BLACK, 0, null, false, null);
+        this.undoLog = new UndoLog();
         
         // 初始化录像和回放
         this.gameRecorder = new GameRecorder();
@@ -68,59 +76,33 @@ public class Go extends Subject implements Game, Serializable {
             return false;
         }
         
+        // 合法性检查已包含劫争和自尽
         if (!isValidMove(row, col) || gameOver) {
             return false;
         }
         
-        // 检查劫争
-        if (lastKoPoint != null && lastKoPoint.getX() == row && lastKoPoint.getY() == col) {
-            gameRecorder.addAnnotation("劫争位置，不能立即回提");
-            return false;
-        }
-        
-        // 创建落子前快照（用于检查自尽）
-        Board snapshot = board.copy();
-        
-        // 落子
-        board.setPiece(row, col, new Piece(currentPlayer.getColor()));
+        // 落子、提子、设置劫点并切换玩家
         Move move = new Move(currentPlayer, row, col);
+        UndoToken token = position.play(row, col);
+        syncFromPosition();
         moveHistory.push(move);
+        undoLog.push(token);
         // 创建移动事件
         fireGameEvent(new MoveMadeEvent(this, move));
         
         // 记录到录像
-        recordMove(row, col);
-        
-        // 提子
-        List<Point> capturedStones = captureStones(row, col);
-        
-        // 检查自尽
-        if (!hasLiberties(row, col)) {
-            // 撤销落子
-            board = snapshot;
-            moveHistory.pop();
-            gameRecorder.addAnnotation("自尽位置，落子无效");
-            return false;
+        if (gameRecorder != null) {
+            gameRecorder.recordMove(move, board);
         }
         
-        // 设置劫点
-        if (capturedStones.size() == 1) {
-            lastKoPoint = capturedStones.get(0);
-        } else {
-            lastKoPoint = null;
+        // 记录提子信息
+        if (token.getChangedCount() > 0) {
+            gameRecorder.addAnnotation("提子: " + token.getChangedCount() + "颗");
         }
         
-        consecutivePasses = 0;
-        
-        // 检查游戏是否结束
-        checkGameEnd();
-        
-        // 切换玩家
-        switchPlayer();
-        
-        // 记录提子信息
-        if (!capturedStones.isEmpty()) {
-            gameRecorder.addAnnotation("提子: " + capturedStones.size() + "颗");
+        if (gameOver) {
+            recordResult();
+            gameRecorder.recordGameEnd(this);
         }
         
         return true;
@@ -134,7 +116,6 @@ public class Go extends Subject implements Game, Serializable {
         
         if (gameOver) return false;
         
-        consecutivePasses++;
         Move move = Move.createPassMove(currentPlayer);
         moveHistory.push(move);
         
@@ -142,16 +123,85 @@ public class Go extends Subject implements Game, Serializable {
         recordPass();
         gameRecorder.addAnnotation(currentPlayer.getName() + " 虚着");
         
-        if (consecutivePasses >= 2) {
-            gameOver = true;
-            calculateWinner();
+        undoLog.push(position.pass());
+        syncFromPosition();
+        if (gameOver) {
+            recordResult();
             gameRecorder.recordGameEnd(this);
-        } else {
-            switchPlayer();
         }
         return true;
     }
     
+    @Override
+    public UndoToken applyMove(Point move) {
+        if (gameOver || isReplayMode()) {
+            return null;
+        }
+        
+        UndoToken token;
+        if (move == null) {
+            token = position.pass();
+        } else if (position.isValidMove(move.getX(), move.getY())) {
+            token = position.play(move.getX(), move.getY());
+        } else {
+            return null;
+        }
+        syncFromPosition();
+        return token;
+    }
+    
+    @Override
+    public void undoMove(UndoToken token) {
+        position.undo(token);
+        syncFromPosition();
+    }
+    
+    @Override
+    public Position toPosition() {
+        return position.copy();
+    }
+    
+    @Override
+    public void setPosition(Position newPosition) {
+        position = ((GoPosition) newPosition).copy();
+        board = position.getBoard();
+        syncFromPosition();
+        resetUndoLog();
+    }
+    
+    // 走棋后把局面中的状态同步到本类字段
+    private void syncFromPosition() {
+        currentPlayer = (position.getSideToMove() == PieceColor.BLACK) ? blackPlayer : whitePlayer;
+        gameOver = position.isGameOver();
+        if (position.getWinner() == PieceColor.BLACK) {
+            winner = blackPlayer;
+        } else if (position.getWinner() == PieceColor.WHITE) {
+            winner = whitePlayer;
+        } else {
+            winner = null;
+        }
+        consecutivePasses = position.getConsecutivePasses();
+        lastKoPoint = position.getKoPoint();
+    }
+    
+    // 由存档字段重建局面
+    private void rebuildPosition() {
+        position = new GoPosition(board, currentPlayer.getColor(), consecutivePasses, lastKoPoint,
+                gameOver, winner == null ? null : winner.getColor());
+        resetUndoLog();
+    }
+    
+    // 局面重建后原有的撤销记录不再适用
+    private void resetUndoLog() {
+        undoLog = new UndoLog();
+        undoLog.reset(moveHistory.size());
+    }
+    
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        rebuildPosition();
+    }
+    
     @Override
     public boolean resign(Player player) {
         if (isReplayMode()) {
@@ -166,6 +216,7 @@ public class Go extends Subject implements Game, Serializable {
         
         Move move = Move.createResignMove(player);
         moveHistory.push(move);
+        undoLog.push(null);
         
         // 记录到录像
         recordResign(player);
@@ -181,291 +232,41 @@ public class Go extends Subject implements Game, Serializable {
             return false;
         }
         
-        // 围棋悔棋比较复杂，这里简化实现
-        Move lastMove = moveHistory.pop();
-        if (lastMove.isNormalMove()) {
-            // 需要恢复被提的棋子，这里简化处理
-            board.clearPosition(lastMove.getRow(), lastMove.getCol());
-            switchPlayer();
-            
-            gameRecorder.addAnnotation(currentPlayer.getName() + " 悔棋一步");
-            return true;
-        } else if (lastMove.isPass()) {
-            consecutivePasses--;
-            switchPlayer();
-            gameRecorder.addAnnotation("撤销虚着");
-            return true;
-        }
-        return false;
-    }
-    
-    private List<Point> captureStones(int row, int col) {
-        List<Point> captured = new ArrayList<>();
-        PieceColor currentColor = currentPlayer.getColor();
-        PieceColor opponentColor = currentColor.getOpposite();
-        
-        int[][] directions = {{0,1}, {1,0}, {0,-1}, {-1,0}};
-        
-        for (int[] dir : directions) {
-            int newRow = row + dir[0];
-            int newCol = col + dir[1];
-            
-            if (board.isValidPosition(newRow, newCol)) {
-                Piece piece = board.getPiece(newRow, newCol);
-                if (piece.getColor() == opponentColor) {
-                    Set<Point> group = findGroup(newRow, newCol);
-                    if (!hasLiberties(group)) {
-                        captured.addAll(group);
-                        for (Point p : group) {
-                            board.clearPosition(p.getX(), p.getY());
-                        }
-                    }
-                }
-            }
+        // 撤销记录没有覆盖最后一步时（读档或整体恢复之后），先重放走棋记录补齐
+        if (!undoLog.contains(moveHistory.size() - 1, undoLog.peek())) {
+            replayHistory();
         }
         
-        return captured;
-    }
-    
-    private Set<Point> findGroup(int startRow, int startCol) {
-        Set<Point> group = new HashSet<>();
-        Stack<Point> stack = new Stack<>();
-        PieceColor color = board.getPiece(startRow, startCol).getColor();
-        
-        stack.push(new Point(startRow, startCol));
-        
-        while (!stack.isEmpty()) {
-            Point p = stack.pop();
-            if (group.contains(p)) continue;
-            
-            group.add(p);
-            
-            int[][] directions = {{0,1}, {1,0}, {0,-1}, {-1,0}};
-            for (int[] dir : directions) {
-                int newRow = p.getX() + dir[0];
-                int newCol = p.getY() + dir[1];
-                
-                if (board.isValidPosition(newRow, newCol)) {
-                    Point neighbor = new Point(newRow, newCol);
-                    if (!group.contains(neighbor) && 
-                        board.getPiece(newRow, newCol).getColor() == color) {
-                        stack.push(neighbor);
-                    }
-                }
-            }
-        }
-        
-        return group;
-    }
-    
-    private boolean hasLiberties(int row, int col) {
-        Set<Point> group = findGroup(row, col);
-        return hasLiberties(group);
-    }
-    
-    private boolean hasLiberties(Set<Point> group) {
-        for (Point p : group) {
-            int[][] directions = {{0,1}, {1,0}, {0,-1}, {-1,0}};
-            for (int[] dir : directions) {
-                int newRow = p.getX() + dir[0];
-                int newCol = p.getY() + dir[1];
-                
-                if (board.isValidPosition(newRow, newCol)) {
-                    if (board.getPiece(newRow, newCol).isEmpty()) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
-    }
-    
-    private void checkGameEnd() {
-        // 检查双方是否都无合法落子
-        boolean blackHasMove = playerHasMove(blackPlayer);
-        boolean whiteHasMove = playerHasMove(whitePlayer);
-        
-        if (!blackHasMove && !whiteHasMove) {
-            gameOver = true;
-            calculateWinner();
-            gameRecorder.recordGameEnd(this);
-        }
-    }
-    
-    private boolean hasValidMoves() {
-        int size = board.getSize();
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (isValidMove(i, j)) {
-                    return true;
-                }
-            }
+        // 按撤销记录还原落子、被提的棋子、劫点和虚着数，只涉及这一步改变的格子
+        Move lastMove = moveHistory.peek();
+        revertTo(moveHistory.size() - 1);
+        if (lastMove.isPass()) {
+            gameRecorder.addAnnotation("撤销虚着");
+        } else {
+            gameRecorder.addAnnotation(currentPlayer.getName() + " 悔棋一步");
         }
-        return false;
-    }
-    
-    private boolean playerHasMove(Player player) {
-        Player savedPlayer = currentPlayer;
-        currentPlayer = player;
-        
-        boolean hasMove = hasValidMoves();
-        
-        currentPlayer = savedPlayer;
-        return hasMove;
+        return true;
     }
     
-    private void calculateWinner() {
-        int blackScore = 0;
-        int whiteScore = 0;
-        double komi = 6.5; // 贴目
+    private void recordResult() {
+        int blackScore = position.getScore(PieceColor.BLACK);
+        int whiteScore = position.getScore(PieceColor.WHITE);
         
-        // 简化版的数子法
-        for (int i = 0; i < board.getSize(); i++) {
-            for (int j = 0; j < board.getSize(); j++) {
-                Piece piece = board.getPiece(i, j);
-                if (piece.getColor() == PieceColor.BLACK) {
-                    blackScore++;
-                } else if (piece.getColor() == PieceColor.WHITE) {
-                    whiteScore++;
-                } else {
-                    // 空点判断（简化）
-                    if (isTerritoryFor(i, j, PieceColor.BLACK)) {
-                        blackScore++;
-                    } else if (isTerritoryFor(i, j, PieceColor.WHITE)) {
-                        whiteScore++;
-                    }
-                }
-            }
-        }
-        
-        // 白方加贴目
-        whiteScore += komi;
-        
-        if (blackScore > whiteScore) {
-            winner = blackPlayer;
+        if (winner == blackPlayer) {
             gameRecorder.addAnnotation("黑方胜: " + blackScore + " vs " + whiteScore + 
-                                     " (含贴目" + komi + ")");
-        } else if (whiteScore > blackScore) {
-            winner = whitePlayer;
+                                     " (含贴目" + GoPosition.KOMI + ")");
+        } else if (winner == whitePlayer) {
             gameRecorder.addAnnotation("白方胜: " + whiteScore + " vs " + blackScore + 
-                                     " (含贴目" + komi + ")");
+                                     " (含贴目" + GoPosition.KOMI + ")");
         } else {
-            winner = null;
             gameRecorder.addAnnotation("平局: " + blackScore + " vs " + whiteScore);
         }
     }
     
-    private boolean isTerritoryFor(int row, int col, PieceColor color) {
-        int[][] directions = {{0,1}, {1,0}, {0,-1}, {-1,0}};
-        for (int[] dir : directions) {
-            int newRow = row + dir[0];
-            int newCol = col + dir[1];
-            
-            if (board.isValidPosition(newRow, newCol)) {
-                Piece piece = board.getPiece(newRow, newCol);
-                if (piece.getColor() == color.getOpposite()) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-    
-    private void switchPlayer() {
-        currentPlayer = (currentPlayer == blackPlayer) ? whitePlayer : blackPlayer;
-    }
-    
     @Override
     public boolean isValidMove(int row, int col) {
         if (gameOver || isReplayMode()) return false;
-        if (!board.isValidPosition(row, col)) return false;
-        if (!board.isPositionEmpty(row, col)) return false;
-        
-        // 检查劫争
-        if (lastKoPoint != null && lastKoPoint.getX() == row && lastKoPoint.getY() == col) {
-            return false;
-        }
-        
-        // 检查自尽
-        Board testBoard = board.copy();
-        testBoard.setPiece(row, col, new Piece(currentPlayer.getColor()));
-        
-        // 模拟提子
-        List<Point> captured = new ArrayList<>();
-        PieceColor currentColor = currentPlayer.getColor();
-        PieceColor opponentColor = currentColor.getOpposite();
-        
-        int[][] directions = {{0,1}, {1,0}, {0,-1}, {-1,0}};
-        for (int[] dir : directions) {
-            int newRow = row + dir[0];
-            int newCol = col + dir[1];
-            
-            if (testBoard.isValidPosition(newRow, newCol)) {
-                Piece piece = testBoard.getPiece(newRow, newCol);
-                if (piece.getColor() == opponentColor) {
-                    Set<Point> group = findGroupOnBoard(testBoard, newRow, newCol);
-                    if (!hasLibertiesOnBoard(testBoard, group)) {
-                        captured.addAll(group);
-                    }
-                }
-            }
-        }
-        
-        // 提子后检查新棋子是否有气
-        for (Point p : captured) {
-            testBoard.clearPosition(p.getX(), p.getY());
-        }
-        
-        Set<Point> newGroup = findGroupOnBoard(testBoard, row, col);
-        return hasLibertiesOnBoard(testBoard, newGroup);
-    }
-    
-    private Set<Point> findGroupOnBoard(Board testBoard, int startRow, int startCol) {
-        Set<Point> group = new HashSet<>();
-        Stack<Point> stack = new Stack<>();
-        PieceColor color = testBoard.getPiece(startRow, startCol).getColor();
-        
-        stack.push(new Point(startRow, startCol));
-        
-        while (!stack.isEmpty()) {
-            Point p = stack.pop();
-            if (group.contains(p)) continue;
-            
-            group.add(p);
-            
-            int[][] directions = {{0,1}, {1,0}, {0,-1}, {-1,0}};
-            for (int[] dir : directions) {
-                int newRow = p.getX() + dir[0];
-                int newCol = p.getY() + dir[1];
-                
-                if (testBoard.isValidPosition(newRow, newCol)) {
-                    Point neighbor = new Point(newRow, newCol);
-                    if (!group.contains(neighbor) && 
-                        testBoard.getPiece(newRow, newCol).getColor() == color) {
-                        stack.push(neighbor);
-                    }
-                }
-            }
-        }
-        
-        return group;
-    }
-    
-    private boolean hasLibertiesOnBoard(Board testBoard, Set<Point> group) {
-        for (Point p : group) {
-            int[][] directions = {{0,1}, {1,0}, {0,-1}, {-1,0}};
-            for (int[] dir : directions) {
-                int newRow = p.getX() + dir[0];
-                int newCol = p.getY() + dir[1];
-                
-                if (testBoard.isValidPosition(newRow, newCol)) {
-                    if (testBoard.getPiece(newRow, newCol).isEmpty()) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return position.isValidMove(row, col);
     }
     
     @Override
@@ -488,6 +289,11 @@ public class Go extends Subject implements Game, Serializable {
         return board;
     }
     
+    @Override
+    public long getPositionHash() {
+        return position.getHash();
+    }
+    
     @Override
     public GameType getGameType() {
         return GameType.GO;
@@ -511,6 +317,11 @@ public class Go extends Subject implements Game, Serializable {
         return moveHistory.size();
     }
     
+    @Override
+    public List<Move> getMoveHistory() {
+        return new ArrayList<>(moveHistory);
+    }
+    
     @Override
     public GameRecorder getGameRecorder() {
         return gameRecorder;
@@ -574,39 +385,44 @@ public class Go extends Subject implements Game, Serializable {
         return null;
     }
     
+    // 从空棋盘按走棋记录重新走一遍，同时重建撤销记录
+    private void replayHistory() {
+        position = new GoPosition(board.getSize());
+        undoLog = new UndoLog();
+        for (Move move : moveHistory) {
+            if (move.isNormalMove()) {
+                undoLog.push(position.play(move.getRow(), move.getCol()));
+            } else if (move.isPass()) {
+                undoLog.push(position.pass());
+            } else {
+                undoLog.push(null);
+            }
+        }
+        board = position.getBoard();
+        syncFromPosition();
+    }
+    
     private void updateBoardToReplayStep() {
-        // 重建棋盘到指定步数
-        board = reconstructBoard(replayStep);
-        
-        // 更新其他状态
+        // 从空棋盘按录像重新走到指定步数
+        position = new GoPosition(board.getSize());
         moveHistory.clear();
-        gameOver = false;
-        winner = null;
-        currentPlayer = blackPlayer;
-        consecutivePasses = 0;
-        lastKoPoint = null;
         
         List<Move> moves = gameRecorder.getMoveHistory();
-        for (int i = 0; i < replayStep; i++) {
+        for (int i = 0; i < replayStep && !position.isGameOver(); i++) {
             Move move = moves.get(i);
             if (move.isNormalMove()) {
-                board.setPiece(move.getRow(), move.getCol(), 
-                              new Piece(move.getPlayer().getColor()));
-                moveHistory.push(move);
-                
-                // 提子（简化）
-                captureStones(move.getRow(), move.getCol());
-                switchPlayer();
-            } else if (move.isPass()) {
-                consecutivePasses++;
-                if (consecutivePasses >= 2) {
-                    gameOver = true;
-                    calculateWinner();
-                    break;
+                if (position.isValidMove(move.getRow(), move.getCol())) {
+                    position.play(move.getRow(), move.getCol());
+                    moveHistory.push(move);
                 }
-                switchPlayer();
+            } else if (move.isPass()) {
+                position.pass();
             }
         }
+        
+        board = position.getBoard();
+        syncFromPosition();
+        resetUndoLog();
     }
     
     private Board reconstructBoard(int targetStep) {
@@ -618,7 +434,7 @@ public class Go extends Subject implements Game, Serializable {
             Move move = moves.get(i);
             if (move.isNormalMove()) {
                 reconstructed.setPiece(move.getRow(), move.getCol(), 
-                                      new Piece(move.getPlayer().getColor()));
+                                      Piece.of(move.getPlayer().getColor()));
             }
         }
         
@@ -630,8 +446,30 @@ public class Go extends Subject implements Game, Serializable {
         return new GameMemento(this);
     }
     
+    @Override
+    public UndoLog getUndoLog() {
+        return undoLog;
+    }
+    
+    @Override
+    public GameMemento saveMoveMemento() {
+        return new GameMemento(moveHistory.size() - 1, undoLog.peek(), gameRecorder);
+    }
+    
     @Override
     public void restoreFromMemento(GameMemento memento) {
+        // 撤销记录还在时只撤销增量，否则需要完整状态
+        if (undoLog.contains(memento.getMoveCount(), memento.getUndoToken())) {
+            revertTo(memento.getMoveCount());
+            if (memento.getGameRecorder() != null) {
+                this.gameRecorder = memento.getGameRecorder();
+            }
+            return;
+        }
+        if (memento.isDelta()) {
+            throw new IllegalStateException("增量备忘录与当前对局不一致");
+        }
+        
         Go savedState = (Go) memento.getSavedState();
         this.board = savedState.board.copy();
         this.currentPlayer = savedState.currentPlayer;
@@ -641,11 +479,30 @@ public class Go extends Subject implements Game, Serializable {
         this.moveHistory.addAll(savedState.moveHistory);
         this.consecutivePasses = savedState.consecutivePasses;
         this.lastKoPoint = savedState.lastKoPoint;
+        rebuildPosition();
         
         // 恢复录像
         if (memento.getGameRecorder() != null) {
             this.gameRecorder = memento.getGameRecorder();
         }
+        if (gameRecorder != null) {
+            gameRecorder.recordUndo(moveHistory.size());
+        }
+    }
+    
+    // 按撤销记录逐步退回到第 target 步之前
+    private void revertTo(int target) {
+        while (moveHistory.size() > target) {
+            moveHistory.pop();
+            UndoToken token = undoLog.pop();
+            if (token != null) {
+                position.undo(token);
+            }
+        }
+        if (gameRecorder != null) {
+            gameRecorder.recordUndo(target);
+        }
+        syncFromPosition();
     }
 
     @Override
@@ -660,50 +517,12 @@ public class Go extends Subject implements Game, Serializable {
 
     @Override
     public List<Point> getValidMoves() {
-        List<Point> validMoves = new ArrayList<>();
-        int size = board.getSize();
-        
-        // 检查每个空位置
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (isValidMove(i, j)) {
-                    validMoves.add(new Point(i, j));
-                }
-            }
-        }
-        
-        // 如果没有任何合法落子位置，返回空列表
+        // 回放模式或已结束时没有合法落子
         // 注意：围棋允许虚着(pass)，所以空列表是合法的
-        return validMoves;
-    }
-
-    // 在指定棋盘上提子（辅助方法）
-    private List<Point> captureStonesOnBoard(Board board, int row, int col, PieceColor color) {
-        List<Point> captured = new ArrayList<>();
-        PieceColor opponentColor = color.getOpposite();
-        
-        int[][] directions = {{0,1}, {1,0}, {0,-1}, {-1,0}};
-        
-        for (int[] dir : directions) {
-            int newRow = row + dir[0];
-            int newCol = col + dir[1];
-            
-            if (board.isValidPosition(newRow, newCol)) {
-                Piece piece = board.getPiece(newRow, newCol);
-                if (piece.getColor() == opponentColor) {
-                    Set<Point> group = findGroupOnBoard(board, newRow, newCol);
-                    if (!hasLibertiesOnBoard(board, group)) {
-                        captured.addAll(group);
-                        // 移除无气棋子
-                        for (Point p : group) {
-                            board.clearPosition(p.getX(), p.getY());
-                        }
-                    }
-                }
-            }
+        if (gameOver || isReplayMode()) {
+            return new ArrayList<>();
         }
-        
-        return captured;
+        return position.getValidMoves();
     }
 
     // 2. 判断是否为AI走棋
@@ -736,8 +555,9 @@ public class Go extends Subject implements Game, Serializable {
         // 创建新实例
         Go copy = new Go(board.getSize());
         
-        // 复制棋盘
-        copy.board = this.board.copy();
+        // 复制局面
+        copy.position = this.position.copy();
+        copy.board = copy.position.getBoard();
         
         // 复制玩家状态
         copy.currentPlayer = (this.currentPlayer == this.blackPlayer) ? 
@@ -757,11 +577,8 @@ public class Go extends Subject implements Game, Serializable {
         copy.moveHistory.addAll(this.moveHistory);
         
         copy.consecutivePasses = this.consecutivePasses;
-        
-        // 复制劫点
-        if (this.lastKoPoint != null) {
-            copy.lastKoPoint = new Point(this.lastKoPoint.getX(), this.lastKoPoint.getY());
-        }
+        copy.lastKoPoint = this.lastKoPoint;
+        copy.resetUndoLog();
         
         // 复制AI设置
         copy.gameMode = this.gameMode;
@@ -929,17 +746,11 @@ public class Go extends Subject implements Game, Serializable {
     // 10. 评估连接能力
     private int evaluateConnection(Point move, PieceColor color) {
         int connections = 0;
-        int[][] directions = {{0,1}, {1,0}, {0,-1}, {-1,0}};
+        int index = move.getX() * board.getSize() + move.getY();
         
-        for (int[] dir : directions) {
-            int newX = move.getX() + dir[0];
-            int newY = move.getY() + dir[1];
-            
-            if (board.isValidPosition(newX, newY)) {
-                Piece piece = board.getPiece(newX, newY);
-                if (piece.getColor() == color) {
-                    connections++;
-                }
+        for (int neighbor : position.getGeometry().neighbors(index)) {
+            if (board.getColor(neighbor) == color) {
+                connections++;
             }
         }
         
@@ -948,49 +759,22 @@ public class Go extends Subject implements Game, Serializable {
 
     // 11. 评估提子潜力
     private int evaluateCapturePotential(Point move, PieceColor color) {
-        // 创建临时棋盘模拟
-        Board testBoard = board.copy();
-        testBoard.setPiece(move.getX(), move.getY(), new Piece(color));
-        
-        int capturedStones = 0;
-        PieceColor opponentColor = color.getOpposite();
-        int[][] directions = {{0,1}, {1,0}, {0,-1}, {-1,0}};
-        
-        for (int[] dir : directions) {
-            int newX = move.getX() + dir[0];
-            int newY = move.getY() + dir[1];
-            
-            if (testBoard.isValidPosition(newX, newY)) {
-                Piece piece = testBoard.getPiece(newX, newY);
-                if (piece.getColor() == opponentColor) {
-                    Set<Point> group = findGroupOnBoard(testBoard, newX, newY);
-                    if (!hasLibertiesOnBoard(testBoard, group)) {
-                        capturedStones += group.size();
-                    }
-                }
-            }
-        }
-        
-        return capturedStones;
+        // 直接查询棋串的气，无需复制棋盘
+        return position.countCaptures(move.getX(), move.getY(), color);
     }
 
     // 12. 评估自尽风险
     private int evaluateSelfCaptureRisk(Point move, PieceColor color) {
-        // 创建临时棋盘检查
-        Board testBoard = board.copy();
-        testBoard.setPiece(move.getX(), move.getY(), new Piece(color));
-        
-        // 提子后检查
-        captureStonesOnBoard(testBoard, move.getX(), move.getY(), color);
-        
-        // 检查新棋子是否有气
-        Set<Point> newGroup = findGroupOnBoard(testBoard, move.getX(), move.getY());
-        boolean hasLiberties = hasLibertiesOnBoard(testBoard, newGroup);
-        
-        return hasLiberties ? 0 : 1; // 有自尽风险返回1
+        return position.isSuicide(move.getX(), move.getY(), color) ? 1 : 0; // 有自尽风险返回1
+    }
+    
+    @Override
+    public GameMode getGameMode() {
+        return gameMode != null ? gameMode : GameMode.PLAYER_VS_PLAYER;
     }
     
     // 设置游戏模式方法
+    @Override
     public void setGameMode(GameMode mode, AIType blackAI, AIType whiteAI) {
         this.gameMode = mode;
         this.playerAITypes.put(blackPlayer, blackAI);
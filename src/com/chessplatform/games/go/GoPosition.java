@@ -0,0 +1,625 @@
+// games/go/GoPosition.java
+package com.chessplatform.games.go;
+
+import com.chessplatform.core.GameType;
+import com.chessplatform.core.Position;
+import com.chessplatform.core.UndoToken;
+import com.chessplatform.model.*;
+import com.chessplatform.util.IntList;
+import java.util.*;
+
+/**
+ * 围棋局面：棋盘、走棋方、劫点和连续虚着数
+ * 提子、劫争、自尽和终局判定都在这里实现，Go 负责走棋记录、录像和事件
+ *
+ * 棋串增量维护：同串棋子用 nextStone 串成环形链表，chainHead 指向串的代表点，
+ * 代表点上记录棋子数和伪气数（每颗棋子相邻空点数之和，同一空点可重复计入）。
+ * 伪气数为0即无气；伪气数等于某空点与该串的相邻棋子数时，该点是这串唯一的气
+ *
+ * 双方的合法落子点用位集保存，每步只重新判定落子点、提子点及相邻棋串的气
+ */
+public class GoPosition implements Position {
+    static final double KOMI = 6.5; // 贴目
+
+    private final Board board;
+    private final int size;
+    private final BoardGeometry geometry;   // 预计算的邻点表
+    private PieceColor sideToMove;
+    private int consecutivePasses;
+    private Point koPoint;
+    private boolean gameOver;
+    private PieceColor winner;
+
+    // 棋串信息，按 row * size + col 索引，空点的 chainHead 为 -1
+    private final int[] chainHead;
+    private final int[] nextStone;
+    private final int[] chainStones;
+    private final int[] pseudoLiberties;
+
+    // 双方合法落子点位集，第 row * size + col 位
+    private final long[] blackLegal;
+    private final long[] whiteLegal;
+
+    // 遍历棋串用的临时数组
+    private final int[] marks;
+    private final int[] chainMarks;
+    private final int[] stack;
+    private int markStamp;
+
+    public GoPosition(int boardSize) {
+        this(new Board(boardSize), PieceColor.BLACK, 0, null, false, null);
+    }
+
+    // 直接使用传入的棋盘，不做复制
+    public GoPosition(Board board, PieceColor sideToMove, int consecutivePasses, Point koPoint,
+                      boolean gameOver, PieceColor winner) {
+        this.board = board;
+        this.size = board.getSize();
+        this.geometry = BoardGeometry.of(size);
+        this.sideToMove = sideToMove;
+        this.consecutivePasses = consecutivePasses;
+        this.koPoint = koPoint;
+        this.gameOver = gameOver;
+        this.winner = winner;
+
+        int cells = size * size;
+        this.chainHead = new int[cells];
+        this.nextStone = new int[cells];
+        this.chainStones = new int[cells];
+        this.pseudoLiberties = new int[cells];
+        this.blackLegal = new long[(cells + 63) >>> 6];
+        this.whiteLegal = new long[(cells + 63) >>> 6];
+        this.marks = new int[cells];
+        this.chainMarks = new int[cells];
+        this.stack = new int[cells];
+
+        Arrays.fill(chainHead, -1);
+        for (int i = 0; i < cells; i++) {
+            if (chainHead[i] < 0 && colorAt(i) != PieceColor.EMPTY) {
+                rebuildChain(i);
+            }
+        }
+        for (int i = 0; i < cells; i++) {
+            updateLegality(i);
+        }
+    }
+
+    private GoPosition(GoPosition other) {
+        this.board = other.board.copy();
+        this.size = other.size;
+        this.geometry = other.geometry;
+        this.sideToMove = other.sideToMove;
+        this.consecutivePasses = other.consecutivePasses;
+        this.koPoint = other.koPoint;
+        this.gameOver = other.gameOver;
+        this.winner = other.winner;
+        this.chainHead = other.chainHead.clone();
+        this.nextStone = other.nextStone.clone();
+        this.chainStones = other.chainStones.clone();
+        this.pseudoLiberties = other.pseudoLiberties.clone();
+        this.blackLegal = other.blackLegal.clone();
+        this.whiteLegal = other.whiteLegal.clone();
+        this.marks = new int[other.marks.length];
+        this.chainMarks = new int[other.chainMarks.length];
+        this.stack = new int[other.stack.length];
+    }
+
+    @Override
+    public GameType getGameType() {
+        return GameType.GO;
+    }
+
+    @Override
+    public Board getBoard() {
+        return board;
+    }
+
+    @Override
+    public PieceColor getSideToMove() {
+        return sideToMove;
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    @Override
+    public PieceColor getWinner() {
+        return winner;
+    }
+
+    @Override
+    public long getHash() {
+        return board.getZobristHash() ^ Zobrist.sideToMove(sideToMove);
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    public int getConsecutivePasses() {
+        return consecutivePasses;
+    }
+
+    public Point getKoPoint() {
+        return koPoint;
+    }
+
+    @Override
+    public boolean isValidMove(int row, int col) {
+        if (gameOver) return false;
+        if (!board.isValidPosition(row, col)) return false;
+        return isLegalBit(sideToMove, row * size + col);
+    }
+
+    @Override
+    public List<Point> getValidMoves() {
+        List<Point> validMoves = new ArrayList<>();
+        if (gameOver) {
+            return validMoves;
+        }
+
+        long[] legal = legalBits(sideToMove);
+        for (int w = 0; w < legal.length; w++) {
+            long word = legal[w];
+            while (word != 0) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                validMoves.add(Point.of(index / size, index % size));
+            }
+        }
+        return validMoves;
+    }
+
+    // 所有合法走法都是候选，不做排序
+    @Override
+    public List<Point> getCandidateMoves() {
+        return getValidMoves();
+    }
+
+    @Override
+    public void getCandidateMoves(IntList moves) {
+        moves.clear();
+        if (gameOver) {
+            return;
+        }
+
+        long[] legal = legalBits(sideToMove);
+        for (int w = 0; w < legal.length; w++) {
+            long word = legal[w];
+            while (word != 0) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                moves.add(PackedMove.of(index / size, index % size));
+            }
+        }
+    }
+
+    @Override
+    public List<Point> getRankedCandidates(int limit) {
+        List<Point> moves = getValidMoves();
+        return (limit > 0 && limit < moves.size()) ? moves.subList(0, limit) : moves;
+    }
+
+    @Override
+    public UndoToken play(int row, int col) {
+        UndoToken token = new UndoToken(row, col, sideToMove, consecutivePasses,
+                koPoint, gameOver, winner);
+        PieceColor color = sideToMove;
+        int index = row * size + col;
+        board.setPiece(row, col, Piece.of(color));
+
+        // 新棋子自成一串；相邻的棋串各少一口伪气
+        chainHead[index] = index;
+        nextStone[index] = index;
+        chainStones[index] = 1;
+        pseudoLiberties[index] = 0;
+        int[] neighbors = geometry.neighbors(index);
+        for (int neighbor : neighbors) {
+            if (chainHead[neighbor] < 0) {
+                pseudoLiberties[index]++;
+            } else {
+                pseudoLiberties[chainHead[neighbor]]--;
+            }
+        }
+
+        // 与相邻的己方棋串合并
+        int head = index;
+        for (int neighbor : neighbors) {
+            if (colorAt(neighbor) == color && chainHead[neighbor] != head) {
+                head = mergeChains(head, chainHead[neighbor]);
+            }
+        }
+
+        // 提掉无气的对方棋串
+        for (int neighbor : neighbors) {
+            if (colorAt(neighbor) == color.getOpposite() && pseudoLiberties[chainHead[neighbor]] == 0) {
+                removeChain(chainHead[neighbor], token);
+            }
+        }
+
+        // 设置劫点
+        if (token.getChangedCount() == 1) {
+            int captured = token.getChanged(0);
+            koPoint = Point.of(captured / size, captured % size);
+        } else {
+            koPoint = null;
+        }
+
+        consecutivePasses = 0;
+        refreshLegality(token, koPoint);
+
+        // 检查游戏是否结束
+        checkGameEnd();
+
+        sideToMove = sideToMove.getOpposite();
+        return token;
+    }
+
+    @Override
+    public UndoToken pass() {
+        UndoToken token = new UndoToken(-1, -1, sideToMove, consecutivePasses,
+                koPoint, gameOver, winner);
+        consecutivePasses++;
+
+        if (consecutivePasses >= 2) {
+            gameOver = true;
+            calculateWinner();
+        } else {
+            sideToMove = sideToMove.getOpposite();
+        }
+        return token;
+    }
+
+    @Override
+    public void undo(UndoToken token) {
+        if (!token.isPass()) {
+            PieceColor mover = token.getSide();
+            Piece captured = Piece.of(mover.getOpposite());
+            int row = token.getRow();
+            int col = token.getCol();
+
+            // 先放回被提的棋子：相邻的己方棋串各少一口伪气，被提的棋串重新建立
+            for (int i = 0; i < token.getChangedCount(); i++) {
+                int index = token.getChanged(i);
+                board.setPiece(index / size, index % size, captured);
+            }
+            for (int i = 0; i < token.getChangedCount(); i++) {
+                for (int neighbor : geometry.neighbors(token.getChanged(i))) {
+                    if (colorAt(neighbor) == mover) {
+                        pseudoLiberties[chainHead[neighbor]]--;
+                    }
+                }
+            }
+            for (int i = 0; i < token.getChangedCount(); i++) {
+                int index = token.getChanged(i);
+                if (chainHead[index] < 0) {
+                    rebuildChain(index);
+                }
+            }
+
+            // 再移除落子：相邻对方棋串各多一口伪气，己方棋串可能被拆开，需要重建
+            board.clearPosition(row, col);
+            chainHead[row * size + col] = -1;
+            int firstStamp = markStamp + 1;
+            for (int neighbor : geometry.neighbors(row * size + col)) {
+                PieceColor color = colorAt(neighbor);
+                if (color == mover.getOpposite()) {
+                    pseudoLiberties[chainHead[neighbor]]++;
+                } else if (color == mover && marks[neighbor] < firstStamp) {
+                    rebuildChain(neighbor);
+                }
+            }
+        }
+
+        sideToMove = token.getSide();
+        consecutivePasses = token.getPreviousPasses();
+        koPoint = token.getPreviousKoPoint();
+        gameOver = token.wasGameOver();
+        winner = token.getPreviousWinner();
+
+        if (!token.isPass()) {
+            refreshLegality(token, koPoint);
+        }
+    }
+
+    @Override
+    public GoPosition copy() {
+        return new GoPosition(this);
+    }
+
+    /**
+     * 简化版数子法得分，白方含贴目
+     */
+    public int getScore(PieceColor color) {
+        int blackScore = 0;
+        int whiteScore = 0;
+
+        for (int index = 0; index < size * size; index++) {
+            PieceColor pieceColor = colorAt(index);
+            if (pieceColor == PieceColor.BLACK) {
+                blackScore++;
+            } else if (pieceColor == PieceColor.WHITE) {
+                whiteScore++;
+            } else {
+                // 空点判断（简化）
+                if (isTerritoryFor(index, PieceColor.BLACK)) {
+                    blackScore++;
+                } else if (isTerritoryFor(index, PieceColor.WHITE)) {
+                    whiteScore++;
+                }
+            }
+        }
+
+        // 白方加贴目
+        whiteScore += KOMI;
+
+        return color == PieceColor.BLACK ? blackScore : whiteScore;
+    }
+
+    /**
+     * color 一方在 (row, col) 落子能提掉的棋子数
+     */
+    public int countCaptures(int row, int col, PieceColor color) {
+        int captured = 0;
+        int counted = -1;
+        int index = row * size + col;
+        for (int neighbor : geometry.neighbors(index)) {
+            int head = chainHead[neighbor];
+            if (colorAt(neighbor) == color.getOpposite() && head != counted
+                    && pseudoLiberties[head] == adjacentStones(index, head)) {
+                captured += chainStones[head];
+                counted = head;
+            }
+        }
+        return captured;
+    }
+
+    /**
+     * color 一方在空点 (row, col) 落子后是否没有气（且不能提子）
+     */
+    public boolean isSuicide(int row, int col, PieceColor color) {
+        return isSuicide(row * size + col, color);
+    }
+
+    private boolean isSuicide(int index, PieceColor color) {
+        for (int neighbor : geometry.neighbors(index)) {
+            int head = chainHead[neighbor];
+            if (head < 0) {
+                return false;
+            }
+
+            // 己方棋串还有别的气，或者对方棋串的最后一口气在这里
+            boolean onlyLiberty = pseudoLiberties[head] == adjacentStones(index, head);
+            if (colorAt(neighbor) == color ? !onlyLiberty : onlyLiberty) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isLegal(int index, PieceColor color) {
+        if (chainHead[index] >= 0) return false;
+
+        // 检查劫争
+        if (koPoint != null && koPoint.getX() * size + koPoint.getY() == index) {
+            return false;
+        }
+
+        // 检查自尽
+        return !isSuicide(index, color);
+    }
+
+    private void checkGameEnd() {
+        // 检查双方是否都无合法落子
+        if (!hasLegalMove(PieceColor.BLACK) && !hasLegalMove(PieceColor.WHITE)) {
+            gameOver = true;
+            calculateWinner();
+        }
+    }
+
+    private boolean hasLegalMove(PieceColor color) {
+        for (long word : legalBits(color)) {
+            if (word != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void calculateWinner() {
+        int blackScore = getScore(PieceColor.BLACK);
+        int whiteScore = getScore(PieceColor.WHITE);
+
+        if (blackScore > whiteScore) {
+            winner = PieceColor.BLACK;
+        } else if (whiteScore > blackScore) {
+            winner = PieceColor.WHITE;
+        } else {
+            winner = null;
+        }
+    }
+
+    private boolean isTerritoryFor(int index, PieceColor color) {
+        for (int neighbor : geometry.neighbors(index)) {
+            if (colorAt(neighbor) == color.getOpposite()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long[] legalBits(PieceColor color) {
+        return color == PieceColor.BLACK ? blackLegal : whiteLegal;
+    }
+
+    private boolean isLegalBit(PieceColor color, int index) {
+        return (legalBits(color)[index >>> 6] & (1L << index)) != 0;
+    }
+
+    // 重新判定一个点对双方是否合法
+    private void updateLegality(int index) {
+        long bit = 1L << index;
+        if (isLegal(index, PieceColor.BLACK)) {
+            blackLegal[index >>> 6] |= bit;
+        } else {
+            blackLegal[index >>> 6] &= ~bit;
+        }
+        if (isLegal(index, PieceColor.WHITE)) {
+            whiteLegal[index >>> 6] |= bit;
+        } else {
+            whiteLegal[index >>> 6] &= ~bit;
+        }
+    }
+
+    /**
+     * 落子或撤销后更新合法点位集
+     * 只有落子点、被提点以及与它们相邻的棋串的气会改变合法性，劫点变化另外处理
+     */
+    private void refreshLegality(UndoToken token, Point otherKoPoint) {
+        int stamp = nextStamp();
+        refreshAround(token.getRow() * size + token.getCol(), stamp);
+        for (int i = 0; i < token.getChangedCount(); i++) {
+            refreshAround(token.getChanged(i), stamp);
+        }
+
+        Point[] koPoints = {token.getPreviousKoPoint(), otherKoPoint};
+        for (Point ko : koPoints) {
+            if (ko != null) {
+                refreshPoint(ko.getX() * size + ko.getY(), stamp);
+            }
+        }
+    }
+
+    private void refreshAround(int index, int stamp) {
+        refreshPoint(index, stamp);
+        for (int neighbor : geometry.neighbors(index)) {
+            int head = chainHead[neighbor];
+            if (head < 0) {
+                refreshPoint(neighbor, stamp);
+            } else if (chainMarks[head] != stamp) {
+                // 这串棋的所有气都要重新判定
+                chainMarks[head] = stamp;
+                int stone = head;
+                do {
+                    for (int liberty : geometry.neighbors(stone)) {
+                        if (chainHead[liberty] < 0) {
+                            refreshPoint(liberty, stamp);
+                        }
+                    }
+                    stone = nextStone[stone];
+                } while (stone != head);
+            }
+        }
+    }
+
+    private void refreshPoint(int index, int stamp) {
+        if (marks[index] != stamp) {
+            marks[index] = stamp;
+            updateLegality(index);
+        }
+    }
+
+    private int nextStamp() {
+        if (markStamp == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            Arrays.fill(chainMarks, 0);
+            markStamp = 0;
+        }
+        return ++markStamp;
+    }
+
+    private PieceColor colorAt(int index) {
+        return board.getColor(index);
+    }
+
+    // index 周围属于 head 所在棋串的棋子数
+    private int adjacentStones(int index, int head) {
+        int count = 0;
+        for (int neighbor : geometry.neighbors(index)) {
+            if (chainHead[neighbor] == head) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // 把较小的棋串并入较大的棋串，返回合并后的代表点
+    private int mergeChains(int first, int second) {
+        if (chainStones[first] < chainStones[second]) {
+            int temp = first;
+            first = second;
+            second = temp;
+        }
+
+        int stone = second;
+        do {
+            chainHead[stone] = first;
+            stone = nextStone[stone];
+        } while (stone != second);
+
+        // 拼接两个环形链表
+        int temp = nextStone[first];
+        nextStone[first] = nextStone[second];
+        nextStone[second] = temp;
+
+        chainStones[first] += chainStones[second];
+        pseudoLiberties[first] += pseudoLiberties[second];
+        return first;
+    }
+
+    // 提掉整串棋子，被提的位置记入 token，相邻棋串的伪气随之增加
+    private void removeChain(int head, UndoToken token) {
+        int stone = head;
+        do {
+            board.clearPosition(stone / size, stone % size);
+            chainHead[stone] = -1;
+            token.addChanged(stone);
+            stone = nextStone[stone];
+        } while (stone != head);
+
+        do {
+            for (int neighbor : geometry.neighbors(stone)) {
+                if (chainHead[neighbor] >= 0) {
+                    pseudoLiberties[chainHead[neighbor]]++;
+                }
+            }
+            stone = nextStone[stone];
+        } while (stone != head);
+    }
+
+    // 从 start 出发重新建立整串的链表、棋子数和伪气数
+    private void rebuildChain(int start) {
+        PieceColor color = colorAt(start);
+        int stamp = nextStamp();
+        int top = 0;
+        int previous = start;
+        int count = 0;
+        int liberties = 0;
+
+        stack[top++] = start;
+        marks[start] = stamp;
+        while (top > 0) {
+            int stone = stack[--top];
+            chainHead[stone] = start;
+            nextStone[previous] = stone;
+            previous = stone;
+            count++;
+
+            for (int neighbor : geometry.neighbors(stone)) {
+                PieceColor neighborColor = colorAt(neighbor);
+                if (neighborColor == PieceColor.EMPTY) {
+                    liberties++;
+                } else if (neighborColor == color && marks[neighbor] != stamp) {
+                    marks[neighbor] = stamp;
+                    stack[top++] = neighbor;
+                }
+            }
+        }
+
+        nextStone[previous] = start;
+        chainStones[start] = count;
+        pseudoLiberties[start] = liberties;
+    }
+}
@@ -25,6 +25,11 @@ public class Gomoku extends Subject implements Game, Serializable {
     private Stack<Move> moveHistory;
     private int consecutivePasses;
     
+    // 规则状态，棋盘与 board 为同一对象；不写入存档，读取时由上面的字段重建
+    private transient GomokuPosition position;
+    private transient UndoLog undoLog;   // 与 moveHistory 对应的撤销记录，供增量备忘录使用
+    private int candidateRadius;   // 旧存档中没有该字段，读取后为0
+    
     // 新增：录像和回放相关字段
     private GameRecorder gameRecorder;
     private ReplayMode replayMode;
@@ -44,6 +49,9 @@ public class Gomoku extends Subject implements Game, Serializable {
         this.winner = null;
         this.moveHistory = new Stack<>();
         this.consecutivePasses = 0;
+        this.candidateRadius = GomokuPosition.DEFAULT_CANDIDATE_RADIUS;
+        this.position = new GomokuPosition(board, PieceColor.BLACK, false, null, candidateRadius);
+        this.undoLog = new UndoLog();
         
         // 初始化录像和回放
         this.gameRecorder = new GameRecorder();
@@ -66,6 +74,43 @@ public class Gomoku extends Subject implements Game, Serializable {
         initializeAIInstances();
     }
     
+    // 结构化复制：复制局面、玩家和走棋历史，录像和AI实例不复制
+    private Gomoku(Gomoku other) {
+        this.blackPlayer = other.blackPlayer.copy();
+        this.whitePlayer = other.whitePlayer.copy();
+        this.currentPlayer = mapPlayer(other, other.currentPlayer);
+        this.winner = mapPlayer(other, other.winner);
+        this.gameOver = other.gameOver;
+        this.moveHistory = new Stack<>();
+        this.moveHistory.addAll(other.moveHistory);
+        this.consecutivePasses = other.consecutivePasses;
+        this.candidateRadius = other.candidateRadius;
+        this.position = other.position.copy();
+        this.board = position.getBoard();
+        resetUndoLog();
+        
+        // 副本只用于模拟，使用空录像并固定为正常模式
+        this.gameRecorder = new GameRecorder();
+        this.replayMode = ReplayMode.NORMAL;
+        this.replayStep = 0;
+        
+        this.gameMode = other.gameMode;
+        this.playerAITypes = new HashMap<>();
+        this.playerAITypes.put(blackPlayer, other.playerAITypes.getOrDefault(other.blackPlayer, AIType.NONE));
+        this.playerAITypes.put(whitePlayer, other.playerAITypes.getOrDefault(other.whitePlayer, AIType.NONE));
+        this.aiInstances = new HashMap<>();   // 需要时由 getAIMove 延迟创建
+    }
+    
+    // 把 other 中的玩家对应到本对象的玩家
+    private Player mapPlayer(Gomoku other, Player player) {
+        if (player == other.blackPlayer) {
+            return blackPlayer;
+        } else if (player == other.whitePlayer) {
+            return whitePlayer;
+        }
+        return null;
+    }
+    
     @Override
     public boolean makeMove(int row, int col) {
         if (isReplayMode()) {
@@ -76,48 +121,101 @@ public class Gomoku extends Subject implements Game, Serializable {
             return false;
         }
         
-        // 落子
-        board.setPiece(row, col, new Piece(currentPlayer.getColor()));
+        // 落子并判断胜负
         Move move = new Move(currentPlayer, row, col);
+        UndoToken token = position.play(row, col);
+        syncFromPosition();
         moveHistory.push(move);
+        undoLog.push(token);
 
         // 创建移动事件
         fireGameEvent(new MoveMadeEvent(this, move));
         
         // 记录到录像
-        recordMove(row, col);
-        
-        // 检查胜负
-        if (checkWin(row, col)) {
-            gameOver = true;
-            winner = currentPlayer;
-            gameRecorder.recordGameEnd(this);
-            gameRecorder.addAnnotation(winner.getName() + " 五子连珠获胜！");
-            
-            winner = currentPlayer;
-
-            // 创建游戏结束事件
-            fireGameEvent(new GameEndedEvent(this, winner, false));
-            return true;
+        if (gameRecorder != null) {
+            gameRecorder.recordMove(move, board);
         }
         
-        // 检查平局
-        if (isBoardFull()) {
-            gameOver = true;
-            winner = null;
+        if (gameOver) {
             gameRecorder.recordGameEnd(this);
-            gameRecorder.addAnnotation("棋盘已满，平局！");
-
-            // 创建平局事件
-            fireGameEvent(new GameEndedEvent(this, null, true));
-            return true;
+            if (winner != null) {
+                gameRecorder.addAnnotation(winner.getName() + " 五子连珠获胜！");
+                // 创建游戏结束事件
+                fireGameEvent(new GameEndedEvent(this, winner, false));
+            } else {
+                gameRecorder.addAnnotation("棋盘已满，平局！");
+                // 创建平局事件
+                fireGameEvent(new GameEndedEvent(this, null, true));
+            }
         }
-        
-        // 切换玩家
-        switchPlayer();
         return true;
     }
     
+    @Override
+    public UndoToken applyMove(Point move) {
+        // 五子棋不允许虚着
+        if (move == null || !isValidMove(move.getX(), move.getY())) {
+            return null;
+        }
+        UndoToken token = position.play(move.getX(), move.getY());
+        syncFromPosition();
+        return token;
+    }
+    
+    @Override
+    public void undoMove(UndoToken token) {
+        position.undo(token);
+        syncFromPosition();
+    }
+    
+    @Override
+    public Position toPosition() {
+        return position.copy();
+    }
+    
+    @Override
+    public void setPosition(Position newPosition) {
+        position = ((GomokuPosition) newPosition).copy();
+        board = position.getBoard();
+        candidateRadius = position.getCandidateRadius();
+        syncFromPosition();
+        resetUndoLog();
+    }
+    
+    // 走棋后把局面中的状态同步到本类字段
+    private void syncFromPosition() {
+        currentPlayer = (position.getSideToMove() == PieceColor.BLACK) ? blackPlayer : whitePlayer;
+        gameOver = position.isGameOver();
+        if (position.getWinner() == PieceColor.BLACK) {
+            winner = blackPlayer;
+        } else if (position.getWinner() == PieceColor.WHITE) {
+            winner = whitePlayer;
+        } else {
+            winner = null;
+        }
+    }
+    
+    // 由存档字段重建局面
+    private void rebuildPosition() {
+        position = new GomokuPosition(board, currentPlayer.getColor(), gameOver,
+                winner == null ? null : winner.getColor(), candidateRadius);
+        resetUndoLog();
+    }
+    
+    // 局面重建后原有的撤销记录不再适用
+    private void resetUndoLog() {
+        undoLog = new UndoLog();
+        undoLog.reset(moveHistory.size());
+    }
+    
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (candidateRadius <= 0) {
+            candidateRadius = GomokuPosition.DEFAULT_CANDIDATE_RADIUS;
+        }
+        rebuildPosition();
+    }
+    
     @Override
     public boolean pass() {
         if (isReplayMode()) {
@@ -145,6 +243,7 @@ public class Gomoku extends Subject implements Game, Serializable {
         
         Move move = Move.createResignMove(player);
         moveHistory.push(move);
+        undoLog.push(null);
         
         // 记录到录像
         recordResign(player);
@@ -167,73 +266,23 @@ public class Gomoku extends Subject implements Game, Serializable {
         if (lastMove.isNormalMove()) {
             board.clearPosition(lastMove.getRow(), lastMove.getCol());
             switchPlayer();
+            rebuildPosition();
             
             // 记录悔棋
+            gameRecorder.recordUndo(moveHistory.size());
             gameRecorder.addAnnotation(currentPlayer.getName() + " 悔棋一步");
             return true;
         } else if (lastMove.isResign()) {
             gameOver = false;
             winner = null;
             lastMove.getPlayer().resign();
+            gameRecorder.recordUndo(moveHistory.size());
             gameRecorder.addAnnotation("撤销认输，游戏继续");
             return true;
         }
         return false;
     }
     
-    private boolean checkWin(int row, int col) {
-        PieceColor color = board.getPiece(row, col).getColor();
-        
-        int[][] directions = {
-            {1, 0},   // 水平
-            {0, 1},   // 垂直
-            {1, 1},   // 对角线
-            {1, -1}   // 反对角线
-        };
-        
-        for (int[] dir : directions) {
-            int count = 1;
-            
-            // 正向检查
-            for (int i = 1; i < 5; i++) {
-                int newRow = row + dir[0] * i;
-                int newCol = col + dir[1] * i;
-                if (!board.isValidPosition(newRow, newCol) || 
-                    board.getPiece(newRow, newCol).getColor() != color) {
-                    break;
-                }
-                count++;
-            }
-            
-            // 反向检查
-            for (int i = 1; i < 5; i++) {
-                int newRow = row - dir[0] * i;
-                int newCol = col - dir[1] * i;
-                if (!board.isValidPosition(newRow, newCol) || 
-                    board.getPiece(newRow, newCol).getColor() != color) {
-                    break;
-                }
-                count++;
-            }
-            
-            if (count >= 5) {
-                return true;
-            }
-        }
-        return false;
-    }
-    
-    private boolean isBoardFull() {
-        for (int i = 0; i < board.getSize(); i++) {
-            for (int j = 0; j < board.getSize(); j++) {
-                if (board.getPiece(i, j).isEmpty()) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-    
     private void switchPlayer() {
         currentPlayer = (currentPlayer == blackPlayer) ? whitePlayer : blackPlayer;
     }
@@ -241,8 +290,7 @@ public class Gomoku extends Subject implements Game, Serializable {
     @Override
     public boolean isValidMove(int row, int col) {
         if (gameOver || isReplayMode()) return false;
-        if (!board.isValidPosition(row, col)) return false;
-        return board.isPositionEmpty(row, col);
+        return position.isValidMove(row, col);
     }
     
     @Override
@@ -265,6 +313,11 @@ public class Gomoku extends Subject implements Game, Serializable {
         return board;
     }
     
+    @Override
+    public long getPositionHash() {
+        return position.getHash();
+    }
+    
     @Override
     public GameType getGameType() {
         return GameType.GOMOKU;
@@ -287,6 +340,11 @@ public class Gomoku extends Subject implements Game, Serializable {
         return moveHistory.size();
     }
     
+    @Override
+    public List<Move> getMoveHistory() {
+        return new ArrayList<>(moveHistory);
+    }
+    
     @Override
     public GameRecorder getGameRecorder() {
         return gameRecorder;
@@ -352,33 +410,23 @@ public class Gomoku extends Subject implements Game, Serializable {
     }
     
     private void updateBoardToReplayStep() {
-        // 根据replayStep重建棋盘
-        board = reconstructBoard(replayStep);
-        
-        // 更新其他状态
+        // 从空棋盘按录像重新走到指定步数
+        position = new GomokuPosition(new Board(board.getSize()), PieceColor.BLACK, false, null,
+                candidateRadius);
         moveHistory.clear();
-        gameOver = false;
-        winner = null;
-        currentPlayer = blackPlayer;
         
         List<Move> moves = gameRecorder.getMoveHistory();
-        for (int i = 0; i < replayStep; i++) {
+        for (int i = 0; i < replayStep && !position.isGameOver(); i++) {
             Move move = moves.get(i);
-            if (move.isNormalMove()) {
-                board.setPiece(move.getRow(), move.getCol(), 
-                              new Piece(move.getPlayer().getColor()));
+            if (move.isNormalMove() && position.isValidMove(move.getRow(), move.getCol())) {
+                position.play(move.getRow(), move.getCol());
                 moveHistory.push(move);
-                
-                // 检查是否结束
-                if (checkWin(move.getRow(), move.getCol())) {
-                    gameOver = true;
-                    winner = move.getPlayer();
-                    break;
-                }
-                
-                switchPlayer();
             }
         }
+        
+        board = position.getBoard();
+        syncFromPosition();
+        resetUndoLog();
     }
     
     private Board reconstructBoard(int targetStep) {
@@ -389,7 +437,7 @@ public class Gomoku extends Subject implements Game, Serializable {
             Move move = moves.get(i);
             if (move.isNormalMove()) {
                 reconstructed.setPiece(move.getRow(), move.getCol(), 
-                                      new Piece(move.getPlayer().getColor()));
+                                      Piece.of(move.getPlayer().getColor()));
             }
         }
         
@@ -401,8 +449,30 @@ public class Gomoku extends Subject implements Game, Serializable {
         return new GameMemento(this);
     }
     
+    @Override
+    public UndoLog getUndoLog() {
+        return undoLog;
+    }
+    
+    @Override
+    public GameMemento saveMoveMemento() {
+        return new GameMemento(moveHistory.size() - 1, undoLog.peek(), gameRecorder);
+    }
+    
     @Override
     public void restoreFromMemento(GameMemento memento) {
+        // 撤销记录还在时只撤销增量，否则需要完整状态
+        if (undoLog.contains(memento.getMoveCount(), memento.getUndoToken())) {
+            revertTo(memento.getMoveCount());
+            if (memento.getGameRecorder() != null) {
+                this.gameRecorder = memento.getGameRecorder();
+            }
+            return;
+        }
+        if (memento.isDelta()) {
+            throw new IllegalStateException("增量备忘录与当前对局不一致");
+        }
+        
         Gomoku savedState = (Gomoku) memento.getSavedState();
         this.board = savedState.board.copy();
         this.currentPlayer = savedState.currentPlayer;
@@ -411,27 +481,61 @@ public class Gomoku extends Subject implements Game, Serializable {
         this.moveHistory = new Stack<>();
         this.moveHistory.addAll(savedState.moveHistory);
         this.consecutivePasses = savedState.consecutivePasses;
+        rebuildPosition();
         
         // 恢复录像
         if (memento.getGameRecorder() != null) {
             this.gameRecorder = memento.getGameRecorder();
         }
+        if (gameRecorder != null) {
+            gameRecorder.recordUndo(moveHistory.size());
+        }
+    }
+    
+    // 按撤销记录逐步退回到第 target 步之前
+    private void revertTo(int target) {
+        while (moveHistory.size() > target) {
+            moveHistory.pop();
+            UndoToken token = undoLog.pop();
+            if (token != null) {
+                position.undo(token);
+            }
+        }
+        if (gameRecorder != null) {
+            gameRecorder.recordUndo(target);
+        }
+        syncFromPosition();
     }
     
     // 获取合法落子位置（用于界面提示）
     public java.util.List<Point> getValidMoves() {
-        java.util.List<Point> validMoves = new java.util.ArrayList<>();
-        int size = board.getSize();
-        
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (isValidMove(i, j)) {
-                    validMoves.add(new Point(i, j));
-                }
-            }
+        if (gameOver || isReplayMode()) {
+            return new java.util.ArrayList<>();
         }
-        
-        return validMoves;
+        return position.getValidMoves();
+    }
+    
+    /**
+     * 供AI使用的候选位置：距已有棋子 radius 以内的空格，按局部棋型排序
+     * @param limit 最多返回的个数，不大于0时返回全部
+     */
+    public java.util.List<Point> getCandidateMoves(int limit) {
+        if (gameOver || isReplayMode()) {
+            return new java.util.ArrayList<>();
+        }
+        return position.getRankedCandidates(limit);
+    }
+    
+    public int getCandidateRadius() {
+        return candidateRadius;
+    }
+    
+    public void setCandidateRadius(int radius) {
+        if (radius < 1) {
+            throw new IllegalArgumentException("候选半径必须大于0");
+        }
+        this.candidateRadius = radius;
+        rebuildPosition();
     }
 
     private void initializeAIInstances() {
@@ -440,7 +544,13 @@ public class Gomoku extends Subject implements Game, Serializable {
         // 可以延迟加载高级AI
     }
     
+    @Override
+    public GameMode getGameMode() {
+        return gameMode != null ? gameMode : GameMode.PLAYER_VS_PLAYER;
+    }
+    
     // 新增：设置游戏模式
+    @Override
     public void setGameMode(GameMode mode, AIType blackAI, AIType whiteAI) {
         this.gameMode = mode;
         this.playerAITypes.put(blackPlayer, blackAI);
@@ -460,7 +570,7 @@ public class Gomoku extends Subject implements Game, Serializable {
     
     @Override
     public boolean isAIMove() {
-        AIType aiType = playerAITypes.get(currentPlayer);
+        AIType aiType = playerAITypes.getOrDefault(currentPlayer, AIType.NONE);
         return aiType != AIType.NONE;
     }   
     
@@ -477,38 +587,22 @@ public class Gomoku extends Subject implements Game, Serializable {
     
     @Override
     public AIType getAITypeForPlayer(Player player) {
-        return playerAITypes.get(player);
+        return playerAITypes.getOrDefault(player, AIType.NONE);
     }
     
     @Override
     public Game copy() {
-        // 实现深拷贝
-        try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(baos);
-            oos.writeObject(this);
-            
-            ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
-            ObjectInputStream ois = new ObjectInputStream(bais);
-            return (Gomoku) ois.readObject();
-        } catch (Exception e) {
-            throw new RuntimeException("复制游戏状态失败", e);
-        }
+        return new Gomoku(this);
     }
     
     // 新增：AI自动走棋方法
     public Point getAIMove() {
-        AIType aiType = playerAITypes.get(currentPlayer);
+        AIType aiType = playerAITypes.getOrDefault(currentPlayer, AIType.NONE);
         if (aiType == AIType.NONE) {
             return null;
         }
         
-        AI ai = aiInstances.get(aiType);
-        if (ai == null) {
-            // 延迟加载AI
-            ai = createAI(aiType);
-            aiInstances.put(aiType, ai);
-        }
+        AI ai = getOrCreateAI(aiType);
         
         // 设置思考时间限制
         ai.setTimeLimit(2000); // 2秒
@@ -517,6 +611,39 @@ public class Gomoku extends Subject implements Game, Serializable {
         return ai.think(this);
     }
     
+    /**
+     * 人机对战轮到人类玩家时，让对手的AI在后台搜索（只有 MCTS 支持）；
+     * 轮到AI、对局结束或对手不是AI时停止后台搜索
+     */
+    public void startPondering() {
+        stopPondering();
+        if (gameOver || isAIMove()) {
+            return;
+        }
+        
+        Player opponent = (currentPlayer == blackPlayer) ? whitePlayer : blackPlayer;
+        AIType aiType = playerAITypes.get(opponent);
+        if (aiType != null && aiType != AIType.NONE) {
+            getOrCreateAI(aiType).startPondering(this);
+        }
+    }
+    
+    public void stopPondering() {
+        for (AI ai : aiInstances.values()) {
+            ai.stopPondering();
+        }
+    }
+    
+    private AI getOrCreateAI(AIType aiType) {
+        AI ai = aiInstances.get(aiType);
+        if (ai == null) {
+            // 延迟加载AI
+            ai = createAI(aiType);
+            aiInstances.put(aiType, ai);
+        }
+        return ai;
+    }
+    
     private AI createAI(AIType aiType) {
         switch (aiType) {
             case RANDOM:
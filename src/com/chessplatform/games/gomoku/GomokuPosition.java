@@ -0,0 +1,366 @@
+// games/gomoku/GomokuPosition.java
+package com.chessplatform.games.gomoku;
+
+import com.chessplatform.core.GameType;
+import com.chessplatform.core.Position;
+import com.chessplatform.core.UndoToken;
+import com.chessplatform.model.*;
+import com.chessplatform.util.IntList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 五子棋局面：棋盘和走棋方
+ * 连五和满盘判定在这里实现，Gomoku 负责走棋记录、录像和事件
+ * 另外增量维护空格数和候选集合（距已有棋子 radius 以内的空格），
+ * 搜索宽度只与已落子区域有关，而不是整个棋盘
+ */
+public class GomokuPosition implements Position {
+    public static final int DEFAULT_CANDIDATE_RADIUS = 2;
+
+    // 候选排序时连子长度对应的权重，堵住对方四连优先于自己成四以外的一切
+    private static final int[] RUN_WEIGHTS = {0, 1, 8, 64, 1024};
+
+    private final Board board;
+    private final int size;
+    private final int radius;
+    private final BoardGeometry geometry;
+    private final byte[] mailbox;        // 带哨兵边框的棋盘副本，连子判定沿步长前进不做越界判断
+    private PieceColor sideToMove;
+    private boolean gameOver;
+    private PieceColor winner;
+
+    private int emptyCount;
+    private final int[] nearbyStones;    // 每个格子 radius 范围内的棋子数
+    private final int[] candidates;      // 候选格子集合，row * size + col
+    private final int[] candidateSlot;   // 格子在 candidates 中的下标，不在集合中为 -1
+    private int candidateCount;
+
+    public GomokuPosition(int boardSize) {
+        this(new Board(boardSize), PieceColor.BLACK, false, null);
+    }
+
+    // 直接使用传入的棋盘，不做复制
+    public GomokuPosition(Board board, PieceColor sideToMove, boolean gameOver, PieceColor winner) {
+        this(board, sideToMove, gameOver, winner, DEFAULT_CANDIDATE_RADIUS);
+    }
+
+    public GomokuPosition(Board board, PieceColor sideToMove, boolean gameOver, PieceColor winner,
+                          int candidateRadius) {
+        if (candidateRadius < 1) {
+            throw new IllegalArgumentException("候选半径必须大于0");
+        }
+        this.board = board;
+        this.size = board.getSize();
+        this.radius = candidateRadius;
+        this.geometry = BoardGeometry.of(size);
+        this.mailbox = geometry.newMailbox(board);
+        this.sideToMove = sideToMove;
+        this.gameOver = gameOver;
+        this.winner = winner;
+
+        this.nearbyStones = new int[size * size];
+        this.candidates = new int[size * size];
+        this.candidateSlot = new int[size * size];
+        Arrays.fill(candidateSlot, -1);
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (board.getColor(i, j) == PieceColor.EMPTY) {
+                    emptyCount++;
+                } else {
+                    addNearby(i, j);
+                }
+            }
+        }
+    }
+
+    private GomokuPosition(GomokuPosition other) {
+        this.board = other.board.copy();
+        this.size = other.size;
+        this.radius = other.radius;
+        this.geometry = other.geometry;
+        this.mailbox = other.mailbox.clone();
+        this.sideToMove = other.sideToMove;
+        this.gameOver = other.gameOver;
+        this.winner = other.winner;
+        this.emptyCount = other.emptyCount;
+        this.nearbyStones = other.nearbyStones.clone();
+        this.candidates = other.candidates.clone();
+        this.candidateSlot = other.candidateSlot.clone();
+        this.candidateCount = other.candidateCount;
+    }
+
+    @Override
+    public GameType getGameType() {
+        return GameType.GOMOKU;
+    }
+
+    @Override
+    public Board getBoard() {
+        return board;
+    }
+
+    @Override
+    public PieceColor getSideToMove() {
+        return sideToMove;
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    @Override
+    public PieceColor getWinner() {
+        return winner;
+    }
+
+    @Override
+    public long getHash() {
+        return board.getZobristHash() ^ Zobrist.sideToMove(sideToMove);
+    }
+
+    @Override
+    public boolean isValidMove(int row, int col) {
+        if (gameOver) return false;
+        if (!board.isValidPosition(row, col)) return false;
+        return board.isPositionEmpty(row, col);
+    }
+
+    @Override
+    public List<Point> getValidMoves() {
+        List<Point> validMoves = new ArrayList<>();
+        if (gameOver) {
+            return validMoves;
+        }
+
+        int size = board.getSize();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (board.getColor(i, j) == PieceColor.EMPTY) {
+                    validMoves.add(Point.of(i, j));
+                }
+            }
+        }
+        return validMoves;
+    }
+
+    /**
+     * 距已有棋子 radius 以内的空格，空棋盘时只返回天元
+     */
+    @Override
+    public List<Point> getCandidateMoves() {
+        if (gameOver || candidateCount == 0) {
+            return emptyBoardCandidates();
+        }
+        List<Point> result = new ArrayList<>(candidateCount);
+        for (int i = 0; i < candidateCount; i++) {
+            result.add(Point.of(candidates[i] / size, candidates[i] % size));
+        }
+        return result;
+    }
+
+    @Override
+    public void getCandidateMoves(IntList moves) {
+        moves.clear();
+        if (gameOver || candidateCount == 0) {
+            for (Point point : emptyBoardCandidates()) {
+                moves.add(PackedMove.of(point));
+            }
+            return;
+        }
+        for (int i = 0; i < candidateCount; i++) {
+            moves.add(PackedMove.of(candidates[i] / size, candidates[i] % size));
+        }
+    }
+
+    /**
+     * 候选走法按局部棋型从高到低排列
+     */
+    @Override
+    public List<Point> getRankedCandidates(int limit) {
+        if (gameOver || candidateCount == 0) {
+            return emptyBoardCandidates();
+        }
+
+        // 分数放在高位、格子下标放在低位，排序后分数相同的按下标排列
+        long[] keys = new long[candidateCount];
+        for (int i = 0; i < candidateCount; i++) {
+            int index = candidates[i];
+            keys[i] = ((long) scoreCandidate(index) << 32) | (size * size - index);
+        }
+        Arrays.sort(keys);
+
+        List<Point> result = new ArrayList<>();
+        int count = (limit > 0) ? Math.min(limit, keys.length) : keys.length;
+        for (int i = keys.length - 1; i >= keys.length - count; i--) {
+            int index = size * size - (int) keys[i];
+            result.add(Point.of(index / size, index % size));
+        }
+        return result;
+    }
+
+    // 没有候选时：对局结束返回空列表，空棋盘只下天元
+    private List<Point> emptyBoardCandidates() {
+        List<Point> result = new ArrayList<>();
+        if (gameOver) {
+            return result;
+        }
+        int center = size / 2;
+        if (board.getColor(center, center) == PieceColor.EMPTY) {
+            result.add(Point.of(center, center));
+            return result;
+        }
+        return getValidMoves();
+    }
+
+    public int getCandidateCount() {
+        return candidateCount;
+    }
+
+    public int getCandidateRadius() {
+        return radius;
+    }
+
+    public int getEmptyCount() {
+        return emptyCount;
+    }
+
+    @Override
+    public UndoToken play(int row, int col) {
+        UndoToken token = new UndoToken(row, col, sideToMove, 0, null, gameOver, winner);
+        board.setPiece(row, col, Piece.of(sideToMove));
+        mailbox[geometry.toMailbox(row, col)] = Board.toCell(sideToMove);
+        emptyCount--;
+        removeCandidate(row * size + col);
+        addNearby(row, col);
+
+        if (checkWin(row, col)) {
+            gameOver = true;
+            winner = sideToMove;
+        } else if (isBoardFull()) {
+            gameOver = true;
+            winner = null;
+        } else {
+            sideToMove = sideToMove.getOpposite();
+        }
+        return token;
+    }
+
+    @Override
+    public UndoToken pass() {
+        // 五子棋不允许虚着
+        return null;
+    }
+
+    @Override
+    public void undo(UndoToken token) {
+        int row = token.getRow();
+        int col = token.getCol();
+        board.clearPosition(row, col);
+        mailbox[geometry.toMailbox(row, col)] = Board.EMPTY_CELL;
+        emptyCount++;
+        removeNearby(row, col);
+        if (nearbyStones[row * size + col] > 0) {
+            addCandidate(row * size + col);
+        }
+        sideToMove = token.getSide();
+        gameOver = token.wasGameOver();
+        winner = token.getPreviousWinner();
+    }
+
+    @Override
+    public GomokuPosition copy() {
+        return new GomokuPosition(this);
+    }
+
+    // 检查 (row, col) 上的棋子是否形成五连
+    boolean checkWin(int row, int col) {
+        int center = geometry.toMailbox(row, col);
+        byte cell = mailbox[center];
+
+        for (int step : geometry.lineSteps()) {
+            if (1 + countRun(center, step, cell) + countRun(center, -step, cell) >= 5) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isBoardFull() {
+        return emptyCount == 0;
+    }
+
+    // (row, col) 落子后，周围格子的计数加一，新进入范围的空格成为候选
+    private void addNearby(int row, int col) {
+        int rowEnd = Math.min(size - 1, row + radius);
+        int colEnd = Math.min(size - 1, col + radius);
+        for (int i = Math.max(0, row - radius); i <= rowEnd; i++) {
+            for (int j = Math.max(0, col - radius); j <= colEnd; j++) {
+                int index = i * size + j;
+                if (nearbyStones[index]++ == 0 && board.getColor(i, j) == PieceColor.EMPTY) {
+                    addCandidate(index);
+                }
+            }
+        }
+    }
+
+    // (row, col) 的棋子撤销后，周围格子的计数减一，离开范围的格子不再是候选
+    private void removeNearby(int row, int col) {
+        int rowEnd = Math.min(size - 1, row + radius);
+        int colEnd = Math.min(size - 1, col + radius);
+        for (int i = Math.max(0, row - radius); i <= rowEnd; i++) {
+            for (int j = Math.max(0, col - radius); j <= colEnd; j++) {
+                int index = i * size + j;
+                if (--nearbyStones[index] == 0) {
+                    removeCandidate(index);
+                }
+            }
+        }
+    }
+
+    private void addCandidate(int index) {
+        if (candidateSlot[index] < 0) {
+            candidateSlot[index] = candidateCount;
+            candidates[candidateCount++] = index;
+        }
+    }
+
+    // 用最后一个元素填补空位，O(1) 删除
+    private void removeCandidate(int index) {
+        int slot = candidateSlot[index];
+        if (slot < 0) {
+            return;
+        }
+        int last = candidates[--candidateCount];
+        candidates[slot] = last;
+        candidateSlot[last] = slot;
+        candidateSlot[index] = -1;
+    }
+
+    // 四个方向上与该空格相连的双方棋子数，走棋方的连子权重加倍
+    private int scoreCandidate(int index) {
+        int center = geometry.toMailbox(index);
+        byte own = Board.toCell(sideToMove);
+        byte opponent = Board.toCell(sideToMove.getOpposite());
+        int score = 0;
+        for (int step : geometry.lineSteps()) {
+            int ownRun = countRun(center, step, own) + countRun(center, -step, own);
+            int opponentRun = countRun(center, step, opponent) + countRun(center, -step, opponent);
+            score += 2 * RUN_WEIGHTS[Math.min(ownRun, 4)];
+            score += RUN_WEIGHTS[Math.min(opponentRun, 4)];
+        }
+        return score;
+    }
+
+    // 从 start 沿 step 方向（不含 start）连续的 cell 棋子数，最多数4个，遇到哨兵自然停止
+    private int countRun(int start, int step, byte cell) {
+        int count = 0;
+        for (int p = start + step; count < 4 && mailbox[p] == cell; p += step) {
+            count++;
+        }
+        return count;
+    }
+}
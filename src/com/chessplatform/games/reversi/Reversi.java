@@ -5,20 +5,17 @@ import com.chessplatform.core.*;
 import com.chessplatform.memento.GameMemento;
 import com.chessplatform.model.*;
 import com.chessplatform.record.GameRecorder;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
 
 public class Reversi extends Subject implements Game, Serializable {
     private static final long serialVersionUID = 1L;
     
-    private static final int BOARD_SIZE = 8;
-    private static final int[][] DIRECTIONS = {
-        {-1, -1}, {-1, 0}, {-1, 1},
-        {0, -1},           {0, 1},
-        {1, -1},  {1, 0},  {1, 1}
-    };
+    private static final int BOARD_SIZE = ReversiBitboard.SIZE;
     
-    private Board board;
+    private Board board;            // 位棋盘的视图，供界面和录像使用
     private Player blackPlayer;
     private Player whitePlayer;
     private Player currentPlayer;
@@ -28,6 +25,10 @@ public class Reversi extends Subject implements Game, Serializable {
     private int consecutivePasses;
     private List<Point> lastFlippedStones;
     
+    // 规则状态（位棋盘），棋盘与 board 为同一对象；不写入存档，读取时由上面的字段重建
+    private transient ReversiPosition position;
+    private transient UndoLog undoLog;   // 与 moveHistory 对应的撤销记录，供增量备忘录使用
+    
     // 录像和回放相关字段
     private GameRecorder gameRecorder;
     private ReplayMode replayMode;
@@ -69,13 +70,9 @@ public class Reversi extends Subject implements Game, Serializable {
     }
     
     private void initializeBoard() {
-        board.clear();
-        
-        int center = board.getSize() / 2 - 1;
-        board.setPiece(center, center, new Piece(PieceColor.WHITE));
-        board.setPiece(center, center + 1, new Piece(PieceColor.BLACK));
-        board.setPiece(center + 1, center, new Piece(PieceColor.BLACK));
-        board.setPiece(center + 1, center + 1, new Piece(PieceColor.WHITE));
+        position = new ReversiPosition();
+        undoLog = new UndoLog();
+        board = position.getBoard();
     }
     
     @Override
@@ -88,30 +85,29 @@ public class Reversi extends Subject implements Game, Serializable {
             return false;
         }
         
-        // 执行落子
-        board.setPiece(row, col, new Piece(currentPlayer.getColor()));
+        // 执行落子、翻转对方棋子并切换玩家
         Move move = new Move(currentPlayer, row, col);
+        UndoToken token = position.play(row, col);
+        syncFromPosition();
         moveHistory.push(move);
+        undoLog.push(token);
         
         // 记录到录像
-        recordMove(row, col);
-        
-        // 翻转对方棋子
-        lastFlippedStones.clear();
-        flipOpponentStones(row, col);
+        if (gameRecorder != null) {
+            gameRecorder.recordMove(move, board);
+        }
         
-        consecutivePasses = 0;
+        setLastFlippedStones(token);
         
         // 记录翻转信息
         if (!lastFlippedStones.isEmpty()) {
             gameRecorder.addAnnotation("翻转了 " + lastFlippedStones.size() + " 颗棋子");
         }
         
-        // 检查游戏是否结束
-        checkGameEnd();
-        
-        // 切换玩家
-        switchPlayer();
+        if (gameOver) {
+            recordResult();
+            gameRecorder.recordGameEnd(this);
+        }
         
         return true;
     }
@@ -124,7 +120,6 @@ public class Reversi extends Subject implements Game, Serializable {
         
         if (gameOver) return false;
         
-        consecutivePasses++;
         Move move = Move.createPassMove(currentPlayer);
         moveHistory.push(move);
         
@@ -132,16 +127,96 @@ public class Reversi extends Subject implements Game, Serializable {
         recordPass();
         gameRecorder.addAnnotation(currentPlayer.getName() + " 虚着");
         
-        if (consecutivePasses >= 2) {
-            gameOver = true;
-            calculateWinner();
+        undoLog.push(position.pass());
+        syncFromPosition();
+        if (gameOver) {
+            recordResult();
             gameRecorder.recordGameEnd(this);
-        } else {
-            switchPlayer();
         }
         return true;
     }
     
+    @Override
+    public UndoToken applyMove(Point move) {
+        if (gameOver || isReplayMode()) {
+            return null;
+        }
+        
+        UndoToken token;
+        if (move == null) {
+            token = position.pass();
+        } else if (position.isValidMove(move.getX(), move.getY())) {
+            token = position.play(move.getX(), move.getY());
+        } else {
+            return null;
+        }
+        syncFromPosition();
+        return token;
+    }
+    
+    @Override
+    public void undoMove(UndoToken token) {
+        position.undo(token);
+        syncFromPosition();
+    }
+    
+    @Override
+    public Position toPosition() {
+        return position.copy();
+    }
+    
+    @Override
+    public void setPosition(Position newPosition) {
+        position = ((ReversiPosition) newPosition).copy();
+        board = position.getBoard();
+        syncFromPosition();
+        resetUndoLog();
+    }
+    
+    // 走棋后把局面中的状态同步到本类字段
+    private void syncFromPosition() {
+        currentPlayer = (position.getSideToMove() == PieceColor.BLACK) ? blackPlayer : whitePlayer;
+        gameOver = position.isGameOver();
+        if (position.getWinner() == PieceColor.BLACK) {
+            winner = blackPlayer;
+        } else if (position.getWinner() == PieceColor.WHITE) {
+            winner = whitePlayer;
+        } else {
+            winner = null;
+        }
+        consecutivePasses = position.getConsecutivePasses();
+    }
+    
+    // 由存档字段重建局面
+    private void rebuildPosition() {
+        position = new ReversiPosition(board, currentPlayer.getColor(), consecutivePasses,
+                gameOver, winner == null ? null : winner.getColor());
+        resetUndoLog();
+    }
+    
+    // 局面重建后原有的撤销记录不再适用
+    private void resetUndoLog() {
+        undoLog = new UndoLog();
+        undoLog.reset(moveHistory.size());
+    }
+    
+    // 最近一步翻转的棋子，虚着或没有记录时为空
+    private void setLastFlippedStones(UndoToken token) {
+        lastFlippedStones.clear();
+        if (token == null || token.isPass()) {
+            return;
+        }
+        for (int i = 0; i < token.getChangedCount(); i++) {
+            int square = token.getChanged(i);
+            lastFlippedStones.add(Point.of(ReversiBitboard.row(square), ReversiBitboard.col(square)));
+        }
+    }
+    
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        rebuildPosition();
+    }
+    
     @Override
     public boolean resign(Player player) {
         if (isReplayMode()) {
@@ -156,6 +231,7 @@ public class Reversi extends Subject implements Game, Serializable {
         
         Move move = Move.createResignMove(player);
         moveHistory.push(move);
+        undoLog.push(null);
         
         // 记录到录像
         recordResign(player);
@@ -171,163 +247,39 @@ public class Reversi extends Subject implements Game, Serializable {
             return false;
         }
         
-        Move lastMove = moveHistory.pop();
-        if (lastMove.isNormalMove()) {
-            // 移除落子
-            board.clearPosition(lastMove.getRow(), lastMove.getCol());
-            
-            // 恢复被翻转的棋子（简化实现）
-            // 实际需要更复杂的逻辑来恢复状态
-            
-            switchPlayer();
-            
-            gameRecorder.addAnnotation(currentPlayer.getName() + " 悔棋一步");
-            return true;
-        } else if (lastMove.isPass()) {
-            consecutivePasses--;
-            switchPlayer();
-            gameRecorder.addAnnotation("撤销虚着");
-            return true;
+        // 撤销记录没有覆盖最后一步时（读档或整体恢复之后），先重放走棋记录补齐
+        if (!undoLog.contains(moveHistory.size() - 1, undoLog.peek())) {
+            replayHistory();
         }
-        return false;
-    }
-    
-    private void flipOpponentStones(int row, int col) {
-        PieceColor currentColor = currentPlayer.getColor();
-        PieceColor opponentColor = currentColor.getOpposite();
         
-        for (int[] dir : DIRECTIONS) {
-            List<Point> toFlip = new ArrayList<>();
-            
-            int r = row + dir[0];
-            int c = col + dir[1];
-            
-            while (board.isValidPosition(r, c)) {
-                Piece piece = board.getPiece(r, c);
-                if (piece.isEmpty()) {
-                    break;
-                }
-                
-                if (piece.getColor() == opponentColor) {
-                    toFlip.add(new Point(r, c));
-                } else if (piece.getColor() == currentColor) {
-                    if (!toFlip.isEmpty()) {
-                        for (Point p : toFlip) {
-                            board.setPiece(p.getX(), p.getY(), new Piece(currentColor));
-                            lastFlippedStones.add(p);
-                        }
-                    }
-                    break;
-                }
-                
-                r += dir[0];
-                c += dir[1];
-            }
-        }
-    }
-    
-    private void checkGameEnd() {
-        // 检查双方是否都无合法落子
-        boolean blackHasMove = playerHasMove(blackPlayer);
-        boolean whiteHasMove = playerHasMove(whitePlayer);
-        
-        if (!blackHasMove && !whiteHasMove) {
-            gameOver = true;
-            calculateWinner();
-            gameRecorder.recordGameEnd(this);
-        }
-    }
-    
-    private boolean hasValidMoves() {
-        int size = board.getSize();
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (isValidMove(i, j)) {
-                    return true;
-                }
-            }
+        // 按撤销记录还原落子、被翻转的棋子和虚着数，只涉及这一步改变的格子
+        Move lastMove = moveHistory.peek();
+        revertTo(moveHistory.size() - 1);
+        if (lastMove.isPass()) {
+            gameRecorder.addAnnotation("撤销虚着");
+        } else {
+            gameRecorder.addAnnotation(currentPlayer.getName() + " 悔棋一步");
         }
-        return false;
-    }
-    
-    private boolean playerHasMove(Player player) {
-        Player savedPlayer = currentPlayer;
-        currentPlayer = player;
-        
-        boolean hasMove = hasValidMoves();
-        
-        currentPlayer = savedPlayer;
-        return hasMove;
+        return true;
     }
     
-    private void calculateWinner() {
-        int blackCount = 0;
-        int whiteCount = 0;
-        
-        int size = board.getSize();
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                Piece piece = board.getPiece(i, j);
-                if (piece.getColor() == PieceColor.BLACK) {
-                    blackCount++;
-                } else if (piece.getColor() == PieceColor.WHITE) {
-                    whiteCount++;
-                }
-            }
-        }
+    private void recordResult() {
+        int blackCount = position.getPieceCount(PieceColor.BLACK);
+        int whiteCount = position.getPieceCount(PieceColor.WHITE);
         
-        if (blackCount > whiteCount) {
-            winner = blackPlayer;
+        if (winner == blackPlayer) {
             gameRecorder.addAnnotation("黑方胜: " + blackCount + " vs " + whiteCount);
-        } else if (whiteCount > blackCount) {
-            winner = whitePlayer;
+        } else if (winner == whitePlayer) {
             gameRecorder.addAnnotation("白方胜: " + whiteCount + " vs " + blackCount);
         } else {
-            winner = null;
             gameRecorder.addAnnotation("平局: " + blackCount + " vs " + whiteCount);
         }
     }
     
-    private void switchPlayer() {
-        currentPlayer = (currentPlayer == blackPlayer) ? whitePlayer : blackPlayer;
-    }
-    
     @Override
     public boolean isValidMove(int row, int col) {
         if (gameOver || isReplayMode()) return false;
-        if (!board.isValidPosition(row, col)) return false;
-        if (!board.isPositionEmpty(row, col)) return false;
-        
-        PieceColor currentColor = currentPlayer.getColor();
-        PieceColor opponentColor = currentColor.getOpposite();
-        
-        for (int[] dir : DIRECTIONS) {
-            int r = row + dir[0];
-            int c = col + dir[1];
-            
-            boolean foundOpponent = false;
-            
-            while (board.isValidPosition(r, c)) {
-                Piece piece = board.getPiece(r, c);
-                if (piece.isEmpty()) {
-                    break;
-                }
-                
-                if (piece.getColor() == opponentColor) {
-                    foundOpponent = true;
-                } else if (piece.getColor() == currentColor) {
-                    if (foundOpponent) {
-                        return true;
-                    }
-                    break;
-                }
-                
-                r += dir[0];
-                c += dir[1];
-            }
-        }
-        
-        return false;
+        return position.isValidMove(row, col);
     }
     
     @Override
@@ -350,6 +302,11 @@ public class Reversi extends Subject implements Game, Serializable {
         return board;
     }
     
+    @Override
+    public long getPositionHash() {
+        return position.getHash();
+    }
+    
     @Override
     public GameType getGameType() {
         return GameType.REVERSI;
@@ -377,39 +334,25 @@ public class Reversi extends Subject implements Game, Serializable {
         return moveHistory.size();
     }
     
+    @Override
+    public List<Move> getMoveHistory() {
+        return new ArrayList<>(moveHistory);
+    }
+    
     // 获取棋子统计
     public Map<PieceColor, Integer> getPieceCount() {
         Map<PieceColor, Integer> counts = new HashMap<>();
-        counts.put(PieceColor.BLACK, 0);
-        counts.put(PieceColor.WHITE, 0);
-        
-        int size = board.getSize();
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                Piece piece = board.getPiece(i, j);
-                if (!piece.isEmpty()) {
-                    counts.put(piece.getColor(), counts.get(piece.getColor()) + 1);
-                }
-            }
-        }
-        
+        counts.put(PieceColor.BLACK, position.getPieceCount(PieceColor.BLACK));
+        counts.put(PieceColor.WHITE, position.getPieceCount(PieceColor.WHITE));
         return counts;
     }
     
     // 获取合法落子位置
     public List<Point> getValidMoves() {
-        List<Point> validMoves = new ArrayList<>();
-        int size = board.getSize();
-        
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (isValidMove(i, j)) {
-                    validMoves.add(new Point(i, j));
-                }
-            }
+        if (gameOver || isReplayMode()) {
+            return new ArrayList<>();
         }
-        
-        return validMoves;
+        return position.getValidMoves();
     }
     
     @Override
@@ -475,133 +418,72 @@ public class Reversi extends Subject implements Game, Serializable {
         return null;
     }
     
+    // 从初始布局按走棋记录重新走一遍，同时重建撤销记录
+    private void replayHistory() {
+        position = new ReversiPosition();
+        undoLog = new UndoLog();
+        for (Move move : moveHistory) {
+            if (move.isNormalMove()) {
+                undoLog.push(position.play(move.getRow(), move.getCol()));
+            } else if (move.isPass()) {
+                undoLog.push(position.pass());
+            } else {
+                undoLog.push(null);
+            }
+        }
+        board = position.getBoard();
+        syncFromPosition();
+        setLastFlippedStones(undoLog.peek());
+    }
+    
     private void updateBoardToReplayStep() {
-        // 重建棋盘到指定步数
-        board = reconstructBoard(replayStep);
-        
-        // 更新其他状态
+        // 从初始布局按录像重新走到指定步数
+        position = new ReversiPosition();
         moveHistory.clear();
-        gameOver = false;
-        winner = null;
-        currentPlayer = blackPlayer;
-        consecutivePasses = 0;
         lastFlippedStones.clear();
         
         List<Move> moves = gameRecorder.getMoveHistory();
-        for (int i = 0; i < replayStep; i++) {
+        for (int i = 0; i < replayStep && !position.isGameOver(); i++) {
             Move move = moves.get(i);
             if (move.isNormalMove()) {
-                board.setPiece(move.getRow(), move.getCol(), 
-                              new Piece(move.getPlayer().getColor()));
-                flipOpponentStonesForReplay(move.getRow(), move.getCol(), 
-                                          move.getPlayer().getColor());
-                moveHistory.push(move);
-                switchPlayer();
-            } else if (move.isPass()) {
-                consecutivePasses++;
-                if (consecutivePasses >= 2) {
-                    gameOver = true;
-                    calculateWinner();
-                    break;
+                if (position.isValidMove(move.getRow(), move.getCol())) {
+                    position.play(move.getRow(), move.getCol());
+                    moveHistory.push(move);
                 }
-                switchPlayer();
+            } else if (move.isPass()) {
+                position.pass();
             }
         }
-    }
-    
-    private void flipOpponentStonesForReplay(int row, int col, PieceColor color) {
-        PieceColor opponentColor = color.getOpposite();
         
-        for (int[] dir : DIRECTIONS) {
-            List<Point> toFlip = new ArrayList<>();
-            
-            int r = row + dir[0];
-            int c = col + dir[1];
-            
-            while (board.isValidPosition(r, c)) {
-                Piece piece = board.getPiece(r, c);
-                if (piece.isEmpty()) {
-                    break;
-                }
-                
-                if (piece.getColor() == opponentColor) {
-                    toFlip.add(new Point(r, c));
-                } else if (piece.getColor() == color) {
-                    if (!toFlip.isEmpty()) {
-                        for (Point p : toFlip) {
-                            board.setPiece(p.getX(), p.getY(), new Piece(color));
-                        }
-                    }
-                    break;
-                }
-                
-                r += dir[0];
-                c += dir[1];
-            }
-        }
+        board = position.getBoard();
+        syncFromPosition();
+        resetUndoLog();
     }
     
     private Board reconstructBoard(int targetStep) {
-        Board reconstructed = new Board(BOARD_SIZE);
-        
-        // 设置初始布局
-        int center = BOARD_SIZE / 2 - 1;
-        reconstructed.setPiece(center, center, new Piece(PieceColor.WHITE));
-        reconstructed.setPiece(center, center + 1, new Piece(PieceColor.BLACK));
-        reconstructed.setPiece(center + 1, center, new Piece(PieceColor.BLACK));
-        reconstructed.setPiece(center + 1, center + 1, new Piece(PieceColor.WHITE));
+        long black = ReversiBitboard.initialBlack();
+        long white = ReversiBitboard.initialWhite();
         
         // 执行前targetStep步
         List<Move> moves = gameRecorder.getMoveHistory();
-        Player replayPlayer = blackPlayer;
-        
         for (int i = 0; i < targetStep && i < moves.size(); i++) {
             Move move = moves.get(i);
             if (move.isNormalMove()) {
-                reconstructed.setPiece(move.getRow(), move.getCol(), 
-                                      new Piece(move.getPlayer().getColor()));
-                
-                // 翻转棋子
-                flipForReconstruction(reconstructed, move.getRow(), move.getCol(), 
-                                    move.getPlayer().getColor());
-                
-                replayPlayer = (replayPlayer == blackPlayer) ? whitePlayer : blackPlayer;
-            }
-        }
-        
-        return reconstructed;
-    }
-    
-    private void flipForReconstruction(Board board, int row, int col, PieceColor color) {
-        PieceColor opponentColor = color.getOpposite();
-        
-        for (int[] dir : DIRECTIONS) {
-            List<Point> toFlip = new ArrayList<>();
-            
-            int r = row + dir[0];
-            int c = col + dir[1];
-            
-            while (board.isValidPosition(r, c)) {
-                Piece piece = board.getPiece(r, c);
-                if (piece.isEmpty()) {
-                    break;
-                }
-                
-                if (piece.getColor() == opponentColor) {
-                    toFlip.add(new Point(r, c));
-                } else if (piece.getColor() == color) {
-                    if (!toFlip.isEmpty()) {
-                        for (Point p : toFlip) {
-                            board.setPiece(p.getX(), p.getY(), new Piece(color));
-                        }
-                    }
-                    break;
+                int square = move.getRow() * BOARD_SIZE + move.getCol();
+                long moveBit = 1L << square;
+                if (move.getPlayer().getColor() == PieceColor.BLACK) {
+                    long flipped = ReversiBitboard.flips(square, black, white);
+                    black |= flipped | moveBit;
+                    white &= ~flipped;
+                } else {
+                    long flipped = ReversiBitboard.flips(square, white, black);
+                    white |= flipped | moveBit;
+                    black &= ~flipped;
                 }
-                
-                r += dir[0];
-                c += dir[1];
             }
         }
+        
+        return ReversiPosition.toBoard(black, white);
     }
     
     @Override
@@ -609,8 +491,30 @@ public class Reversi extends Subject implements Game, Serializable {
         return new GameMemento(this);
     }
     
+    @Override
+    public UndoLog getUndoLog() {
+        return undoLog;
+    }
+    
+    @Override
+    public GameMemento saveMoveMemento() {
+        return new GameMemento(moveHistory.size() - 1, undoLog.peek(), gameRecorder);
+    }
+    
     @Override
     public void restoreFromMemento(GameMemento memento) {
+        // 撤销记录还在时只撤销增量，否则需要完整状态
+        if (undoLog.contains(memento.getMoveCount(), memento.getUndoToken())) {
+            revertTo(memento.getMoveCount());
+            if (memento.getGameRecorder() != null) {
+                this.gameRecorder = memento.getGameRecorder();
+            }
+            return;
+        }
+        if (memento.isDelta()) {
+            throw new IllegalStateException("增量备忘录与当前对局不一致");
+        }
+        
         Reversi savedState = (Reversi) memento.getSavedState();
         this.board = savedState.board.copy();
         this.currentPlayer = savedState.currentPlayer;
@@ -620,11 +524,31 @@ public class Reversi extends Subject implements Game, Serializable {
         this.moveHistory.addAll(savedState.moveHistory);
         this.consecutivePasses = savedState.consecutivePasses;
         this.lastFlippedStones = new ArrayList<>(savedState.lastFlippedStones);
+        rebuildPosition();
         
         // 恢复录像
         if (memento.getGameRecorder() != null) {
             this.gameRecorder = memento.getGameRecorder();
         }
+        if (gameRecorder != null) {
+            gameRecorder.recordUndo(moveHistory.size());
+        }
+    }
+    
+    // 按撤销记录逐步退回到第 target 步之前
+    private void revertTo(int target) {
+        while (moveHistory.size() > target) {
+            moveHistory.pop();
+            UndoToken token = undoLog.pop();
+            if (token != null) {
+                position.undo(token);
+            }
+        }
+        if (gameRecorder != null) {
+            gameRecorder.recordUndo(target);
+        }
+        syncFromPosition();
+        setLastFlippedStones(undoLog.peek());
     }
 
     // 1. 获取玩家颜色
@@ -665,8 +589,9 @@ public class Reversi extends Subject implements Game, Serializable {
         // 创建新实例
         Reversi copy = new Reversi();
         
-        // 复制棋盘
-        copy.board = this.board.copy();
+        // 复制局面
+        copy.position = this.position.copy();
+        copy.board = copy.position.getBoard();
         
         // 复制玩家状态
         copy.currentPlayer = (this.currentPlayer == this.blackPlayer) ? 
@@ -689,6 +614,7 @@ public class Reversi extends Subject implements Game, Serializable {
         
         // 复制最近翻转的棋子
         copy.lastFlippedStones = new ArrayList<>(this.lastFlippedStones);
+        copy.resetUndoLog();
         
         // 复制AI设置
         copy.gameMode = this.gameMode;
@@ -811,10 +737,12 @@ public class Reversi extends Subject implements Game, Serializable {
         Map<Point, Integer> scores = new HashMap<>();
         PieceColor aiColor = currentPlayer.getColor();
         
+        // 只复制一次局面，之后在副本上落子/撤销
+        ReversiPosition simulated = position.copy();
+        
         for (Point move : validMoves) {
             // 模拟这一步
-            Reversi simulated = (Reversi) this.copy();
-            simulated.makeMove(move.getX(), move.getY());
+            UndoToken token = simulated.play(move.getX(), move.getY());
             
             // 评估局面
             int score = evaluateBoardPosition(simulated, aiColor);
@@ -826,9 +754,9 @@ public class Reversi extends Subject implements Game, Serializable {
                     // 假设对手会选择对我们最不利的走法
                     int opponentBestScore = Integer.MIN_VALUE;
                     for (Point oppMove : opponentMoves) {
-                        Reversi oppSimulated = (Reversi) simulated.copy();
-                        oppSimulated.makeMove(oppMove.getX(), oppMove.getY());
-                        int oppScore = evaluateBoardPosition(oppSimulated, aiColor);
+                        UndoToken oppToken = simulated.play(oppMove.getX(), oppMove.getY());
+                        int oppScore = evaluateBoardPosition(simulated, aiColor);
+                        simulated.undo(oppToken);
                         if (oppScore > opponentBestScore) {
                             opponentBestScore = oppScore;
                         }
@@ -838,6 +766,7 @@ public class Reversi extends Subject implements Game, Serializable {
                 }
             }
             
+            simulated.undo(token);
             scores.put(move, score);
         }
         
@@ -926,73 +855,46 @@ public class Reversi extends Subject implements Game, Serializable {
     }
 
     // 12. 评估棋盘整体局面
-    private int evaluateBoardPosition(Reversi game, PieceColor aiColor) {
+    private int evaluateBoardPosition(ReversiPosition position, PieceColor aiColor) {
         int score = 0;
         
         // 1. 棋子数量差
-        Map<PieceColor, Integer> counts = game.getPieceCount();
-        int aiCount = counts.get(aiColor);
-        int oppCount = counts.get(aiColor.getOpposite());
+        int aiCount = position.getPieceCount(aiColor);
+        int oppCount = position.getPieceCount(aiColor.getOpposite());
         score += (aiCount - oppCount) * 10;
         
         // 2. 角落控制
-        score += evaluateCornerControl(game, aiColor) * 50;
+        score += evaluateCornerControl(position.getBoard(), aiColor) * 50;
         
         // 3. 行动力（当前玩家的合法落子数）
-        List<Point> aiMoves = game.getValidMoves();
+        List<Point> aiMoves = position.getValidMoves();
         score += aiMoves.size() * 5;
         
         // 4. 边缘控制
-        score += evaluateEdgeControl(game, aiColor) * 10;
+        score += evaluateEdgeControl(position.getBoard(), aiColor) * 10;
         
         // 5. 稳定性（不会被翻转的棋子）
-        score += evaluateStability(game, aiColor) * 20;
+        score += evaluateStability(position.getBoard(), aiColor) * 20;
         
         return score;
     }
 
     // 13. 计算可能翻转的棋子数量
     private int countPotentialFlips(int row, int col, PieceColor color) {
-        int totalFlips = 0;
-        PieceColor opponentColor = color.getOpposite();
-        
-        for (int[] dir : DIRECTIONS) {
-            int flipsInDirection = 0;
-            int r = row + dir[0];
-            int c = col + dir[1];
-            
-            // 查找可以翻转的棋子
-            while (board.isValidPosition(r, c)) {
-                Piece piece = board.getPiece(r, c);
-                if (piece.isEmpty()) {
-                    break; // 遇到空位，不能翻转
-                }
-                
-                if (piece.getColor() == opponentColor) {
-                    flipsInDirection++;
-                } else if (piece.getColor() == color) {
-                    // 遇到己方棋子，可以翻转中间的对手棋子
-                    totalFlips += flipsInDirection;
-                    break;
-                }
-                
-                r += dir[0];
-                c += dir[1];
-            }
-        }
-        
-        return totalFlips;
+        return Long.bitCount(ReversiBitboard.flips(row * BOARD_SIZE + col,
+                position.bitsOf(color), position.bitsOf(color.getOpposite())));
     }
 
     // 14. 估计对手的行动力
     private int estimateOpponentMobilityAfterMove(Point move, PieceColor aiColor) {
-        // 创建临时棋盘模拟
-        Reversi simulated = (Reversi) this.copy();
-        simulated.makeMove(move.getX(), move.getY());
+        // 直接在位棋盘上模拟落子，无需复制整个游戏
+        long own = position.bitsOf(aiColor);
+        long opp = position.bitsOf(aiColor.getOpposite());
+        int square = move.getX() * BOARD_SIZE + move.getY();
+        long flipped = ReversiBitboard.flips(square, own, opp);
         
         // 计算对手的合法落子数
-        List<Point> opponentMoves = simulated.getValidMoves();
-        return opponentMoves.size();
+        return Long.bitCount(ReversiBitboard.legalMoves(opp & ~flipped, own | flipped | (1L << square)));
     }
 
     // 15. 检查是否保护了角落
@@ -1023,10 +925,9 @@ public class Reversi extends Subject implements Game, Serializable {
     }
 
     // 17. 评估角落控制
-    private int evaluateCornerControl(Reversi game, PieceColor aiColor) {
+    private int evaluateCornerControl(Board board, PieceColor aiColor) {
         int score = 0;
-        int boardSize = game.getBoard().getSize();
-        Board board = game.getBoard();
+        int boardSize = board.getSize();
         
         int[][] corners = {{0,0}, {0,boardSize-1}, {boardSize-1,0}, {boardSize-1,boardSize-1}};
         
@@ -1044,10 +945,9 @@ public class Reversi extends Subject implements Game, Serializable {
     }
 
     // 18. 评估边缘控制
-    private int evaluateEdgeControl(Reversi game, PieceColor aiColor) {
+    private int evaluateEdgeControl(Board board, PieceColor aiColor) {
         int score = 0;
-        int boardSize = game.getBoard().getSize();
-        Board board = game.getBoard();
+        int boardSize = board.getSize();
         
         // 检查四条边（不包括角落）
         for (int i = 1; i < boardSize-1; i++) {
@@ -1065,11 +965,10 @@ public class Reversi extends Subject implements Game, Serializable {
     }
 
     // 19. 评估稳定性（简化版）
-    private int evaluateStability(Reversi game, PieceColor aiColor) {
+    private int evaluateStability(Board board, PieceColor aiColor) {
         // 简化实现：计算角落和边缘的稳定棋子
         int stablePieces = 0;
-        int boardSize = game.getBoard().getSize();
-        Board board = game.getBoard();
+        int boardSize = board.getSize();
         
         // 角落总是稳定的
         int[][] corners = {{0,0}, {0,boardSize-1}, {boardSize-1,0}, {boardSize-1,boardSize-1}};
@@ -1107,7 +1006,13 @@ public class Reversi extends Subject implements Game, Serializable {
         return score;
     }
 
+    @Override
+    public GameMode getGameMode() {
+        return gameMode != null ? gameMode : GameMode.PLAYER_VS_PLAYER;
+    }
+    
     // 设置游戏模式方法
+    @Override
     public void setGameMode(GameMode mode, AIType blackAI, AIType whiteAI) {
         this.gameMode = mode;
         this.playerAITypes.put(blackPlayer, blackAI);
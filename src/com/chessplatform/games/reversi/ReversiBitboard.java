@@ -0,0 +1,95 @@
+// games/reversi/ReversiBitboard.java
+package com.chessplatform.games.reversi;
+
+/**
+ * 黑白棋位棋盘运算（8x8，第 row*8+col 位表示 (row, col)）
+ * 使用 Kogge-Stone 平移填充一次性计算整条方向上的合法落子与翻转
+ */
+final class ReversiBitboard {
+    static final int SIZE = 8;
+
+    private static final long NOT_A_FILE = 0xfefefefefefefefeL;  // 去掉第0列
+    private static final long NOT_H_FILE = 0x7f7f7f7f7f7f7f7fL;  // 去掉第7列
+
+    // 八个方向的平移位数（正数左移，负数无符号右移）及防止跨行回绕的掩码
+    private static final int[] SHIFTS = {1, -1, 8, -8, 9, 7, -7, -9};
+    private static final long[] MASKS = {
+        NOT_A_FILE, NOT_H_FILE, -1L, -1L,
+        NOT_A_FILE, NOT_H_FILE, NOT_A_FILE, NOT_H_FILE
+    };
+
+    private ReversiBitboard() {
+    }
+
+    static long bit(int row, int col) {
+        return 1L << (row * SIZE + col);
+    }
+
+    static int row(int square) {
+        return square >>> 3;
+    }
+
+    static int col(int square) {
+        return square & 7;
+    }
+
+    static long initialBlack() {
+        return bit(3, 4) | bit(4, 3);
+    }
+
+    static long initialWhite() {
+        return bit(3, 3) | bit(4, 4);
+    }
+
+    /**
+     * 计算 own 一方的全部合法落子位置
+     */
+    static long legalMoves(long own, long opp) {
+        long empty = ~(own | opp);
+        long moves = 0L;
+        for (int d = 0; d < SHIFTS.length; d++) {
+            long run = occludedFill(own, opp, d) & opp;
+            moves |= shiftOne(run, d) & empty;
+        }
+        return moves;
+    }
+
+    /**
+     * 计算 own 一方在 square 落子后会被翻转的对方棋子，非法位置返回0
+     */
+    static long flips(int square, long own, long opp) {
+        long move = 1L << square;
+        if (((own | opp) & move) != 0) {
+            return 0L;
+        }
+
+        long flipped = 0L;
+        for (int d = 0; d < SHIFTS.length; d++) {
+            long line = occludedFill(move, opp, d);
+            if ((shiftOne(line, d) & own) != 0) {
+                flipped |= line & opp;
+            }
+        }
+        return flipped;
+    }
+
+    // 从 gen 出发沿方向 d 穿过 pro 中的棋子做填充（Kogge-Stone，三次平移覆盖7格）
+    private static long occludedFill(long gen, long pro, int d) {
+        int s = SHIFTS[d];
+        pro &= MASKS[d];
+        gen |= pro & shift(gen, s);
+        pro &= shift(pro, s);
+        gen |= pro & shift(gen, s * 2);
+        pro &= shift(pro, s * 2);
+        gen |= pro & shift(gen, s * 4);
+        return gen;
+    }
+
+    private static long shiftOne(long b, int d) {
+        return shift(b, SHIFTS[d]) & MASKS[d];
+    }
+
+    private static long shift(long b, int s) {
+        return s > 0 ? b << s : b >>> -s;
+    }
+}
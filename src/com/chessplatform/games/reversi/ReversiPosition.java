@@ -0,0 +1,289 @@
+// games/reversi/ReversiPosition.java
+package com.chessplatform.games.reversi;
+
+import com.chessplatform.core.GameType;
+import com.chessplatform.core.Position;
+import com.chessplatform.core.UndoToken;
+import com.chessplatform.model.*;
+import com.chessplatform.util.IntList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 黑白棋局面：双方位棋盘、走棋方和连续虚着数
+ * board 只是位棋盘的视图，落子和撤销时按变化的格子同步
+ */
+public class ReversiPosition implements Position {
+    private static final int BOARD_SIZE = ReversiBitboard.SIZE;
+
+    private final Board board;
+    private long blackBits;
+    private long whiteBits;
+    private PieceColor sideToMove;
+    private int consecutivePasses;
+    private boolean gameOver;
+    private PieceColor winner;
+
+    public ReversiPosition() {
+        this(toBoard(ReversiBitboard.initialBlack(), ReversiBitboard.initialWhite()),
+                PieceColor.BLACK, 0, false, null);
+    }
+
+    // 直接使用传入的棋盘作为视图，并由它生成位棋盘
+    public ReversiPosition(Board board, PieceColor sideToMove, int consecutivePasses,
+                           boolean gameOver, PieceColor winner) {
+        this.board = board;
+        this.sideToMove = sideToMove;
+        this.consecutivePasses = consecutivePasses;
+        this.gameOver = gameOver;
+        this.winner = winner;
+
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                PieceColor color = board.getColor(i, j);
+                if (color == PieceColor.BLACK) {
+                    blackBits |= ReversiBitboard.bit(i, j);
+                } else if (color == PieceColor.WHITE) {
+                    whiteBits |= ReversiBitboard.bit(i, j);
+                }
+            }
+        }
+    }
+
+    private ReversiPosition(ReversiPosition other) {
+        this.board = other.board.copy();
+        this.blackBits = other.blackBits;
+        this.whiteBits = other.whiteBits;
+        this.sideToMove = other.sideToMove;
+        this.consecutivePasses = other.consecutivePasses;
+        this.gameOver = other.gameOver;
+        this.winner = other.winner;
+    }
+
+    // 根据位棋盘生成完整的Board
+    static Board toBoard(long black, long white) {
+        Board result = new Board(BOARD_SIZE);
+        long occupied = black | white;
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            PieceColor color = (black & (1L << square)) != 0 ? PieceColor.BLACK : PieceColor.WHITE;
+            result.setPiece(ReversiBitboard.row(square), ReversiBitboard.col(square), Piece.of(color));
+        }
+        return result;
+    }
+
+    @Override
+    public GameType getGameType() {
+        return GameType.REVERSI;
+    }
+
+    @Override
+    public Board getBoard() {
+        return board;
+    }
+
+    @Override
+    public PieceColor getSideToMove() {
+        return sideToMove;
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    @Override
+    public PieceColor getWinner() {
+        return winner;
+    }
+
+    @Override
+    public long getHash() {
+        return board.getZobristHash() ^ Zobrist.sideToMove(sideToMove);
+    }
+
+    public int getConsecutivePasses() {
+        return consecutivePasses;
+    }
+
+    public int getPieceCount(PieceColor color) {
+        return Long.bitCount(bitsOf(color));
+    }
+
+    long bitsOf(PieceColor color) {
+        return color == PieceColor.BLACK ? blackBits : whiteBits;
+    }
+
+    @Override
+    public boolean isValidMove(int row, int col) {
+        if (gameOver) return false;
+        if (!board.isValidPosition(row, col)) return false;
+
+        return ReversiBitboard.flips(row * BOARD_SIZE + col,
+                bitsOf(sideToMove), bitsOf(sideToMove.getOpposite())) != 0;
+    }
+
+    @Override
+    public List<Point> getValidMoves() {
+        List<Point> validMoves = new ArrayList<>();
+        if (gameOver) {
+            return validMoves;
+        }
+
+        long moves = ReversiBitboard.legalMoves(bitsOf(sideToMove), bitsOf(sideToMove.getOpposite()));
+        while (moves != 0) {
+            int square = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            validMoves.add(Point.of(ReversiBitboard.row(square), ReversiBitboard.col(square)));
+        }
+        return validMoves;
+    }
+
+    // 所有合法走法都是候选，不做排序
+    @Override
+    public List<Point> getCandidateMoves() {
+        return getValidMoves();
+    }
+
+    @Override
+    public void getCandidateMoves(IntList moves) {
+        moves.clear();
+        if (gameOver) {
+            return;
+        }
+
+        long legal = ReversiBitboard.legalMoves(bitsOf(sideToMove), bitsOf(sideToMove.getOpposite()));
+        while (legal != 0) {
+            int square = Long.numberOfTrailingZeros(legal);
+            legal &= legal - 1;
+            moves.add(PackedMove.of(ReversiBitboard.row(square), ReversiBitboard.col(square)));
+        }
+    }
+
+    @Override
+    public List<Point> getRankedCandidates(int limit) {
+        List<Point> moves = getValidMoves();
+        return (limit > 0 && limit < moves.size()) ? moves.subList(0, limit) : moves;
+    }
+
+    @Override
+    public UndoToken play(int row, int col) {
+        UndoToken token = new UndoToken(row, col, sideToMove, consecutivePasses,
+                null, gameOver, winner);
+
+        // 执行落子并翻转对方棋子
+        int square = row * BOARD_SIZE + col;
+        long flipped = ReversiBitboard.flips(square, bitsOf(sideToMove), bitsOf(sideToMove.getOpposite()));
+        long changed = flipped | (1L << square);
+        if (sideToMove == PieceColor.BLACK) {
+            blackBits |= changed;
+            whiteBits &= ~flipped;
+        } else {
+            whiteBits |= changed;
+            blackBits &= ~flipped;
+        }
+        syncBoard(changed);
+
+        // 被翻转的棋子以格子下标记入 token
+        while (flipped != 0) {
+            token.addChanged(Long.numberOfTrailingZeros(flipped));
+            flipped &= flipped - 1;
+        }
+
+        consecutivePasses = 0;
+
+        // 检查游戏是否结束
+        checkGameEnd();
+
+        sideToMove = sideToMove.getOpposite();
+        return token;
+    }
+
+    @Override
+    public UndoToken pass() {
+        UndoToken token = new UndoToken(-1, -1, sideToMove, consecutivePasses,
+                null, gameOver, winner);
+        consecutivePasses++;
+
+        if (consecutivePasses >= 2) {
+            gameOver = true;
+            calculateWinner();
+        } else {
+            sideToMove = sideToMove.getOpposite();
+        }
+        return token;
+    }
+
+    @Override
+    public void undo(UndoToken token) {
+        if (!token.isPass()) {
+            // 移除落子并把翻转的棋子还给对方
+            long placed = ReversiBitboard.bit(token.getRow(), token.getCol());
+            long flipped = 0L;
+            for (int i = 0; i < token.getChangedCount(); i++) {
+                flipped |= 1L << token.getChanged(i);
+            }
+            if (token.getSide() == PieceColor.BLACK) {
+                blackBits &= ~(flipped | placed);
+                whiteBits |= flipped;
+            } else {
+                whiteBits &= ~(flipped | placed);
+                blackBits |= flipped;
+            }
+            syncBoard(flipped | placed);
+        }
+
+        sideToMove = token.getSide();
+        consecutivePasses = token.getPreviousPasses();
+        gameOver = token.wasGameOver();
+        winner = token.getPreviousWinner();
+    }
+
+    @Override
+    public ReversiPosition copy() {
+        return new ReversiPosition(this);
+    }
+
+    // 把位棋盘上发生变化的格子同步到Board视图
+    private void syncBoard(long changed) {
+        while (changed != 0) {
+            int square = Long.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+            int row = ReversiBitboard.row(square);
+            int col = ReversiBitboard.col(square);
+            long bit = 1L << square;
+            if ((blackBits & bit) != 0) {
+                board.setPiece(row, col, Piece.BLACK);
+            } else if ((whiteBits & bit) != 0) {
+                board.setPiece(row, col, Piece.WHITE);
+            } else {
+                board.clearPosition(row, col);
+            }
+        }
+    }
+
+    private void checkGameEnd() {
+        // 检查双方是否都无合法落子
+        boolean blackHasMove = ReversiBitboard.legalMoves(blackBits, whiteBits) != 0;
+        boolean whiteHasMove = ReversiBitboard.legalMoves(whiteBits, blackBits) != 0;
+
+        if (!blackHasMove && !whiteHasMove) {
+            gameOver = true;
+            calculateWinner();
+        }
+    }
+
+    private void calculateWinner() {
+        int blackCount = Long.bitCount(blackBits);
+        int whiteCount = Long.bitCount(whiteBits);
+
+        if (blackCount > whiteCount) {
+            winner = PieceColor.BLACK;
+        } else if (whiteCount > blackCount) {
+            winner = PieceColor.WHITE;
+        } else {
+            winner = null;
+        }
+    }
+}
@@ -1,31 +1,155 @@
 // memento/GameCaretaker.java
 package com.chessplatform.memento;
 
-import java.util.Stack;
+import com.chessplatform.core.UndoLog;
 
+/**
+ * 悔棋记录，按环形缓冲区保存备忘录
+ * 大多数是只引用一步撤销记录的增量备忘录，步数不设上限，
+ * 只在估算内存超过预算时从最旧的一端淘汰；入队和淘汰都是 O(1)。
+ * 游戏的撤销记录也计入预算，并随淘汰裁到最旧备忘录那一步，
+ * 备忘录与撤销记录共享的部分按两份估算，偏保守
+ */
 public class GameCaretaker {
-    private Stack<GameMemento> mementos = new Stack<>();
-    private static final int MAX_UNDO_STEPS = 10;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long DEFAULT_MEMORY_BUDGET = 1L << 20;
+    private static final int DEFAULT_KEYFRAME_INTERVAL = 8;
     
-    public void saveMemento(GameMemento memento) {
-        if (mementos.size() >= MAX_UNDO_STEPS) {
-            mementos.remove(0); // 移除最旧的记录
+    private GameMemento[] ring = new GameMemento[INITIAL_CAPACITY];
+    private int head;    // 最旧的记录
+    private int count;
+    private long usedBytes;
+    private long memoryBudget = DEFAULT_MEMORY_BUDGET;
+    
+    // 每隔 keyframeInterval 步保存一次完整备忘录，其余只保存增量
+    private int keyframeInterval = DEFAULT_KEYFRAME_INTERVAL;
+    private int deltasSinceKeyframe;
+    
+    private UndoLog undoLog;   // 最近一次保存时游戏的撤销记录，回放后游戏会换成新的
+    
+    public void saveMemento(GameMemento memento, UndoLog undoLog) {
+        this.undoLog = undoLog;
+        if (count == ring.length) {
+            grow();
+        }
+        ring[(head + count) % ring.length] = memento;
+        count++;
+        usedBytes += memento.estimateSize();
+        deltasSinceKeyframe = memento.isDelta() ? deltasSinceKeyframe + 1 : 0;
+        
+        // 超出预算时淘汰最旧的记录，至少保留刚存入的一条
+        trimUndoLog();
+        while (getUsedBytes() > memoryBudget && count > 1) {
+            evictOldest();
         }
-        mementos.push(memento);
     }
     
     public GameMemento getLastMemento() {
-        if (mementos.isEmpty()) {
+        if (count == 0) {
             return null;
         }
-        return mementos.pop();
+        int tail = (head + count - 1) % ring.length;
+        GameMemento memento = ring[tail];
+        ring[tail] = null;
+        count--;
+        usedBytes -= memento.estimateSize();
+        deltasSinceKeyframe = countDeltasSinceKeyframe();
+        return memento;
+    }
+    
+    /**
+     * 丢弃增量备忘录直到最近的关键帧并取出它；没有关键帧时返回 null
+     * 用于增量无法应用（对局被其他方式修改过）时的回退
+     */
+    public GameMemento getLastKeyframe() {
+        while (count > 0) {
+            GameMemento memento = getLastMemento();
+            if (!memento.isDelta()) {
+                return memento;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 下一步是否应保存完整备忘录
+     */
+    public boolean isKeyframeDue() {
+        return count == 0 || deltasSinceKeyframe + 1 >= keyframeInterval;
+    }
+    
+    public void setKeyframeInterval(int keyframeInterval) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("关键帧间隔必须大于0");
+        }
+        this.keyframeInterval = keyframeInterval;
+    }
+    
+    public void setMemoryBudget(long memoryBudget) {
+        if (memoryBudget < 1) {
+            throw new IllegalArgumentException("内存预算必须大于0");
+        }
+        this.memoryBudget = memoryBudget;
+        while (getUsedBytes() > memoryBudget && count > 1) {
+            evictOldest();
+        }
+    }
+    
+    public int size() {
+        return count;
+    }
+    
+    public long getUsedBytes() {
+        return undoLog != null ? usedBytes + undoLog.estimateSize() : usedBytes;
     }
     
     public boolean canUndo() {
-        return !mementos.isEmpty();
+        return count > 0;
     }
     
     public void clear() {
-        mementos.clear();
+        ring = new GameMemento[INITIAL_CAPACITY];
+        head = 0;
+        count = 0;
+        usedBytes = 0;
+        deltasSinceKeyframe = 0;
+        undoLog = null;
+    }
+    
+    private void evictOldest() {
+        usedBytes -= ring[head].estimateSize();
+        ring[head] = null;
+        head = (head + 1) % ring.length;
+        count--;
+        trimUndoLog();
+    }
+    
+    // 最旧备忘录之前的撤销记录已经用不到了
+    private void trimUndoLog() {
+        if (undoLog != null && count > 0) {
+            undoLog.trimBefore(ring[head].getMoveCount());
+        }
+    }
+    
+    // 容量翻倍，按从旧到新的顺序搬到新数组开头
+    private void grow() {
+        GameMemento[] larger = new GameMemento[ring.length * 2];
+        for (int i = 0; i < count; i++) {
+            larger[i] = ring[(head + i) % ring.length];
+        }
+        ring = larger;
+        head = 0;
+    }
+    
+    // 从最新一条往前数到关键帧为止的增量个数，最多数 keyframeInterval 条
+    private int countDeltasSinceKeyframe() {
+        int deltas = 0;
+        for (int i = count - 1; i >= 0 && deltas < keyframeInterval; i--) {
+            if (!ring[(head + i) % ring.length].isDelta()) {
+                break;
+            }
+            deltas++;
+        }
+        return deltas;
     }
-}
\ No newline at end of file
+}
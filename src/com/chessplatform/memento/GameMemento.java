@@ -2,15 +2,26 @@
 package com.chessplatform.memento;
 
 import com.chessplatform.core.Game;
+import com.chessplatform.core.UndoToken;
 import com.chessplatform.record.GameRecorder;  // 新增导入
 
 import java.io.*;
 
+/**
+ * 游戏备忘录，分两种：
+ * 完整备忘录（关键帧）复制整个游戏状态；
+ * 增量备忘录只引用某一步的撤销记录，恢复时从当前局面逐步撤销回这一步之前，
+ * 只在内存中使用，不写入存档。
+ * 关键帧也可以附带所在那一步的撤销记录，能撤销时优先撤销，不能时再整体恢复
+ */
 public class GameMemento implements Serializable {
     private static final long serialVersionUID = 1L;
     private Game savedState;
     private GameRecorder gameRecorder;  // 新增：保存录像
     
+    private transient UndoToken undoToken;  // 这一步的撤销记录
+    private int moveCount;                  // 这一步之前的总步数
+    
     public GameMemento(Game game) {
         // 深度复制游戏状态
         try {
@@ -32,6 +43,46 @@ public class GameMemento implements Serializable {
         }
     }
     
+    // 增量备忘录
+    public GameMemento(int moveCount, UndoToken undoToken, GameRecorder gameRecorder) {
+        this.moveCount = moveCount;
+        this.undoToken = undoToken;
+        this.gameRecorder = gameRecorder;
+    }
+    
+    // 给关键帧附上这一步的撤销记录
+    public void attachDelta(GameMemento delta) {
+        this.moveCount = delta.moveCount;
+        this.undoToken = delta.undoToken;
+    }
+    
+    public boolean isDelta() {
+        return savedState == null;
+    }
+    
+    public UndoToken getUndoToken() {
+        return undoToken;
+    }
+    
+    public int getMoveCount() {
+        return moveCount;
+    }
+    
+    /**
+     * 粗略估计占用的内存字节数，供 GameCaretaker 控制总量
+     */
+    public long estimateSize() {
+        long size = 48;
+        if (undoToken != null) {
+            size += undoToken.estimateSize();
+        }
+        if (savedState != null) {
+            int boardSize = savedState.getBoard().getSize();
+            size += 512 + 2L * boardSize * boardSize + 96L * savedState.getMoveCount();
+        }
+        return size;
+    }
+    
     public Game getSavedState() {
         return savedState;
     }
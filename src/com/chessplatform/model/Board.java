@@ -1,73 +1,160 @@
 // model/Board.java
 package com.chessplatform.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.Arrays;
 
 public class Board implements Serializable {
+    private static final long serialVersionUID = -6171603019388714244L;  // 与旧存档保持一致
+
+    // 格子编码
+    public static final byte EMPTY_CELL = 0;
+    public static final byte BLACK_CELL = 1;
+    public static final byte WHITE_CELL = 2;
+
+    private static final Piece[] PIECES = {Piece.EMPTY, Piece.BLACK, Piece.WHITE};
+    private static final PieceColor[] COLORS = {PieceColor.EMPTY, PieceColor.BLACK, PieceColor.WHITE};
+
+    // 旧版本以 Piece[][] grid 保存，读取旧存档时需要兼容
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("size", int.class),
+        new ObjectStreamField("cells", byte[].class),
+        new ObjectStreamField("grid", Piece[][].class)
+    };
+
     private int size;
-    private Piece[][] grid;
-    
+    private byte[] cells;   // 按 row * size + col 存放格子编码
+    private transient long hash;   // 增量维护的 Zobrist 哈希
+
     public Board(int size) {
         if (size < 8 || size > 19) {
             throw new IllegalArgumentException("棋盘大小必须在8-19之间");
         }
         this.size = size;
-        initializeGrid();
+        this.cells = new byte[size * size];
     }
-    
-    private void initializeGrid() {
-        grid = new Piece[size][size];
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                grid[i][j] = new Piece(PieceColor.EMPTY);
-            }
+
+    public static byte toCell(PieceColor color) {
+        switch (color) {
+            case BLACK:
+                return BLACK_CELL;
+            case WHITE:
+                return WHITE_CELL;
+            default:
+                return EMPTY_CELL;
         }
     }
-    
+
+    static PieceColor colorOf(byte cell) {
+        return COLORS[cell];
+    }
+
     public int getSize() {
         return size;
     }
-    
+
     public Piece getPiece(int row, int col) {
         if (!isValidPosition(row, col)) {
             throw new IllegalArgumentException("位置超出棋盘范围");
         }
-        return grid[row][col];
+        return PIECES[cells[row * size + col]];
+    }
+
+    public PieceColor getColor(int row, int col) {
+        if (!isValidPosition(row, col)) {
+            throw new IllegalArgumentException("位置超出棋盘范围");
+        }
+        return COLORS[cells[row * size + col]];
     }
-    
+
+    // 按 row * size + col 取颜色，供预计算的邻点表使用
+    public PieceColor getColor(int index) {
+        return COLORS[cells[index]];
+    }
+
+    byte getCell(int index) {
+        return cells[index];
+    }
+
     public void setPiece(int row, int col, Piece piece) {
         if (!isValidPosition(row, col)) {
             throw new IllegalArgumentException("位置超出棋盘范围");
         }
-        grid[row][col] = piece;
+        setCell(row, col, toCell(piece.getColor()));
     }
-    
+
     public void clearPosition(int row, int col) {
         if (!isValidPosition(row, col)) {
             throw new IllegalArgumentException("位置超出棋盘范围");
         }
-        grid[row][col] = new Piece(PieceColor.EMPTY);
+        setCell(row, col, EMPTY_CELL);
+    }
+
+    private void setCell(int row, int col, byte cell) {
+        int index = row * size + col;
+        hash ^= Zobrist.key(cells[index], row, col) ^ Zobrist.key(cell, row, col);
+        cells[index] = cell;
     }
-    
+
+    /**
+     * 当前棋子分布的 Zobrist 哈希（不含走棋方）
+     */
+    public long getZobristHash() {
+        return hash;
+    }
+
     public boolean isValidPosition(int row, int col) {
         return row >= 0 && row < size && col >= 0 && col < size;
     }
-    
+
     public boolean isPositionEmpty(int row, int col) {
         return getPiece(row, col).isEmpty();
     }
-    
+
     public void clear() {
-        initializeGrid();
+        Arrays.fill(cells, EMPTY_CELL);
+        hash = 0L;
     }
-    
+
     public Board copy() {
         Board copy = new Board(size);
+        System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+        copy.hash = hash;
+        return copy;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("size", size);
+        fields.put("cells", cells);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        size = fields.get("size", 0);
+        cells = (byte[]) fields.get("cells", null);
+        if (cells == null) {
+            // 旧格式存档
+            Piece[][] grid = (Piece[][]) fields.get("grid", null);
+            cells = new byte[size * size];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    cells[i * size + j] = toCell(grid[i][j].getColor());
+                }
+            }
+        }
+
+        // 哈希不写入存档，读取后重新计算
+        hash = 0L;
         for (int i = 0; i < size; i++) {
             for (int j = 0; j < size; j++) {
-                copy.grid[i][j] = new Piece(grid[i][j].getColor());
+                hash ^= Zobrist.key(cells[i * size + j], i, j);
             }
         }
-        return copy;
     }
-}
\ No newline at end of file
+}
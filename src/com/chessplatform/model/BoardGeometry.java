@@ -0,0 +1,100 @@
+// model/BoardGeometry.java
+package com.chessplatform.model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 按棋盘大小预先计算的坐标表，创建后只读，同样大小的局面共享一份
+ *
+ * 带哨兵边框的一维棋盘（mailbox）：四周各多出一圈 BORDER 格，
+ * 格子 (row, col) 的下标为 (row + 1) * stride + (col + 1)。
+ * 沿任一方向逐格前进时遇到哨兵就会停下，内层循环不需要越界判断
+ */
+public final class BoardGeometry {
+    public static final byte BORDER = 3;   // 哨兵格，与任何棋子编码都不相等
+
+    private static final AtomicReferenceArray<BoardGeometry> CACHE =
+            new AtomicReferenceArray<>(Zobrist.MAX_SIZE + 1);
+
+    private final int size;
+    private final int stride;
+    private final int[] mailboxIndex;   // row * size + col 对应的 mailbox 下标
+    private final int[][] neighbors;    // 每个格子在棋盘内的上下左右邻点，row * size + col
+    private final int[] lineSteps;      // 水平、垂直、两条对角线在 mailbox 中的步长
+
+    private BoardGeometry(int size) {
+        this.size = size;
+        this.stride = size + 2;
+        this.mailboxIndex = new int[size * size];
+        this.neighbors = new int[size * size][];
+        this.lineSteps = new int[] {1, stride, stride + 1, stride - 1};
+
+        int[][] directions = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
+        int[] buffer = new int[4];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int index = row * size + col;
+                mailboxIndex[index] = (row + 1) * stride + (col + 1);
+
+                int count = 0;
+                for (int[] dir : directions) {
+                    int newRow = row + dir[0];
+                    int newCol = col + dir[1];
+                    if (newRow >= 0 && newRow < size && newCol >= 0 && newCol < size) {
+                        buffer[count++] = newRow * size + newCol;
+                    }
+                }
+                neighbors[index] = Arrays.copyOf(buffer, count);
+            }
+        }
+    }
+
+    // 不加锁；并发首次创建时只保留先写入的一份
+    public static BoardGeometry of(int size) {
+        if (size < 1 || size > Zobrist.MAX_SIZE) {
+            throw new IllegalArgumentException("棋盘大小超出范围: " + size);
+        }
+        BoardGeometry geometry = CACHE.get(size);
+        if (geometry == null) {
+            CACHE.compareAndSet(size, null, new BoardGeometry(size));
+            geometry = CACHE.get(size);
+        }
+        return geometry;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int toMailbox(int row, int col) {
+        return mailboxIndex[row * size + col];
+    }
+
+    public int toMailbox(int index) {
+        return mailboxIndex[index];
+    }
+
+    // 返回共享数组，调用方不得修改
+    public int[] neighbors(int index) {
+        return neighbors[index];
+    }
+
+    public int[] lineSteps() {
+        return lineSteps;
+    }
+
+    /**
+     * 按棋盘内容生成 mailbox：边框为 BORDER，棋盘内为格子编码
+     */
+    public byte[] newMailbox(Board board) {
+        byte[] mailbox = new byte[stride * stride];
+        Arrays.fill(mailbox, BORDER);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                mailbox[toMailbox(row, col)] = Board.toCell(board.getColor(row, col));
+            }
+        }
+        return mailbox;
+    }
+}
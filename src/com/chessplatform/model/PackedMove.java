@@ -0,0 +1,39 @@
+// model/PackedMove.java
+package com.chessplatform.model;
+
+/**
+ * 走法的整数编码：高位存行、低8位存列，虚着为 PASS
+ * 搜索和走法生成中用 int 代替 Point，不产生临时对象；
+ * 编码不依赖棋盘大小，也可以放进 short
+ */
+public final class PackedMove {
+    public static final int PASS = -1;
+
+    private PackedMove() {
+    }
+
+    public static int of(int row, int col) {
+        return (row << 8) | col;
+    }
+
+    // null 表示虚着
+    public static int of(Point point) {
+        return point == null ? PASS : of(point.getX(), point.getY());
+    }
+
+    public static int row(int move) {
+        return move >> 8;
+    }
+
+    public static int col(int move) {
+        return move & 0xFF;
+    }
+
+    public static boolean isPass(int move) {
+        return move == PASS;
+    }
+
+    public static Point toPoint(int move) {
+        return isPass(move) ? null : Point.of(row(move), col(move));
+    }
+}
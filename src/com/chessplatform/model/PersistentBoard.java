@@ -0,0 +1,79 @@
+// model/PersistentBoard.java
+package com.chessplatform.model;
+
+/**
+ * 不可变棋盘，按行存放并在棋盘之间共享
+ * 由已有棋盘派生新棋盘时只复制内容变化的行，其余行与原棋盘共用，
+ * 适合录像快照这类需要保留大量相近局面的场合
+ */
+public final class PersistentBoard {
+    private final int size;
+    private final byte[][] rows;   // 行数组创建后不再修改，可被多个棋盘引用
+
+    private PersistentBoard(int size, byte[][] rows) {
+        this.size = size;
+        this.rows = rows;
+    }
+
+    // 所有行共用同一个空行
+    private static PersistentBoard empty(int size) {
+        byte[] emptyRow = new byte[size];
+        byte[][] rows = new byte[size][];
+        for (int i = 0; i < size; i++) {
+            rows[i] = emptyRow;
+        }
+        return new PersistentBoard(size, rows);
+    }
+
+    public static PersistentBoard of(Board board) {
+        return empty(board.getSize()).update(board);
+    }
+
+    /**
+     * 返回与 board 内容相同的新棋盘，只复制不同的行；完全相同时返回自身
+     */
+    public PersistentBoard update(Board board) {
+        if (board.getSize() != size) {
+            throw new IllegalArgumentException("棋盘大小不一致");
+        }
+        byte[][] newRows = null;
+        for (int i = 0; i < size; i++) {
+            if (!rowEquals(rows[i], board, i)) {
+                if (newRows == null) {
+                    newRows = rows.clone();
+                }
+                byte[] row = new byte[size];
+                for (int j = 0; j < size; j++) {
+                    row[j] = board.getCell(i * size + j);
+                }
+                newRows[i] = row;
+            }
+        }
+        return (newRows == null) ? this : new PersistentBoard(size, newRows);
+    }
+
+    /**
+     * 复制出一个可修改的 Board
+     */
+    public Board toBoard() {
+        Board board = new Board(size);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (rows[i][j] != Board.EMPTY_CELL) {
+                    board.setPiece(i, j, Piece.of(Board.colorOf(rows[i][j])));
+                }
+            }
+        }
+        return board;
+    }
+
+    private static boolean rowEquals(byte[] row, Board board, int rowIndex) {
+        int offset = rowIndex * row.length;
+        for (int j = 0; j < row.length; j++) {
+            if (row[j] != board.getCell(offset + j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
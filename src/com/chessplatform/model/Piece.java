@@ -3,27 +3,46 @@ package com.chessplatform.model;
 
 import java.io.Serializable;
 
-public class Piece implements Serializable {
-    private PieceColor color;
-    
-    public Piece(PieceColor color) {
+public final class Piece implements Serializable {
+    private static final long serialVersionUID = 1867233432672283795L;  // 与旧存档保持一致
+
+    // 全局共享的三种棋子（不可变）
+    public static final Piece BLACK = new Piece(PieceColor.BLACK);
+    public static final Piece WHITE = new Piece(PieceColor.WHITE);
+    public static final Piece EMPTY = new Piece(PieceColor.EMPTY);
+
+    private final PieceColor color;
+
+    private Piece(PieceColor color) {
         this.color = color;
     }
-    
+
+    public static Piece of(PieceColor color) {
+        switch (color) {
+            case BLACK:
+                return BLACK;
+            case WHITE:
+                return WHITE;
+            default:
+                return EMPTY;
+        }
+    }
+
     public PieceColor getColor() {
         return color;
     }
-    
-    public void setColor(PieceColor color) {
-        this.color = color;
-    }
-    
+
     public boolean isEmpty() {
         return color == PieceColor.EMPTY;
     }
-    
+
+    // 反序列化时替换为共享实例
+    private Object readResolve() {
+        return of(color);
+    }
+
     @Override
     public String toString() {
         return color.getSymbol();
     }
-}
\ No newline at end of file
+}
@@ -5,6 +5,8 @@ import com.chessplatform.auth.User;
 import java.io.Serializable;
 
 public class Player implements Serializable {
+    private static final long serialVersionUID = 3652117910230503250L;  // 与旧存档保持一致
+    
     private User user;
     private PieceColor color;
     private boolean hasResigned;
@@ -40,6 +42,13 @@ public class Player implements Serializable {
         this.hasResigned = true;
     }
     
+    // 复制对局中的玩家状态，用户信息共享
+    public Player copy() {
+        Player copy = new Player(user, color);
+        copy.hasResigned = hasResigned;
+        return copy;
+    }
+    
     @Override
     public String toString() {
         String stats = user.isRegistered() ? user.getStats().getFormattedStats() : "";
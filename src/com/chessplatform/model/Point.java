@@ -6,14 +6,36 @@ import java.io.Serializable;
 public class Point implements Serializable {
     private static final long serialVersionUID = 1L;  // 添加版本UID
     
-    private int x;
-    private int y;
+    // 棋盘最大为19路，所有棋盘共用同一张缓存表
+    private static final int CACHE_SIZE = 19;
+    private static final Point[] CACHE = new Point[CACHE_SIZE * CACHE_SIZE];
+
+    static {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            for (int j = 0; j < CACHE_SIZE; j++) {
+                CACHE[i * CACHE_SIZE + j] = new Point(i, j);
+            }
+        }
+    }
+    
+    private final int x;
+    private final int y;
     
     public Point(int x, int y) {
         this.x = x;
         this.y = y;
     }
     
+    /**
+     * 取缓存的坐标对象，棋盘范围外的坐标才新建
+     */
+    public static Point of(int x, int y) {
+        if (x >= 0 && x < CACHE_SIZE && y >= 0 && y < CACHE_SIZE) {
+            return CACHE[x * CACHE_SIZE + y];
+        }
+        return new Point(x, y);
+    }
+    
     public int getX() {
         return x;
     }
@@ -0,0 +1,44 @@
+// model/Zobrist.java
+package com.chessplatform.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist 随机键表
+ * 使用固定种子生成，保证同一局面在不同进程、不同运行中得到相同的哈希值
+ */
+public final class Zobrist {
+    public static final int MAX_SIZE = 19;
+
+    private static final long SEED = 0x43686573735A6F62L;
+
+    // [格子编码-1][row * MAX_SIZE + col]，空格的键为0
+    private static final long[][] PIECE_KEYS = new long[2][MAX_SIZE * MAX_SIZE];
+
+    // 白方走棋时异或进局面哈希
+    public static final long WHITE_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int c = 0; c < PIECE_KEYS.length; c++) {
+            for (int i = 0; i < PIECE_KEYS[c].length; i++) {
+                PIECE_KEYS[c][i] = random.nextLong();
+            }
+        }
+        WHITE_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long key(byte cell, int row, int col) {
+        if (cell == Board.EMPTY_CELL) {
+            return 0L;
+        }
+        return PIECE_KEYS[cell - 1][row * MAX_SIZE + col];
+    }
+
+    public static long sideToMove(PieceColor color) {
+        return color == PieceColor.WHITE ? WHITE_TO_MOVE : 0L;
+    }
+}
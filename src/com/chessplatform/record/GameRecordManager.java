@@ -3,35 +3,114 @@ package com.chessplatform.record;
 
 import com.chessplatform.auth.User;
 import com.chessplatform.memento.GameMemento;
-import com.chessplatform.util.FileUtil;
+import com.chessplatform.util.SegmentStore;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Consumer;
 
+/**
+ * 对局录像的存取
+ * 新录像追加到 records/archive/ 下的分段存储中，键为 用户名/类型_时间；
+ * 旧版本每局一个的 records/<用户名>/*.record 文件仍然可以读取
+ */
 public class GameRecordManager {
     private static final String RECORDS_DIR = "records/";
+    private static final String ARCHIVE_DIR = RECORDS_DIR + "archive/";
+
+    private static SegmentStore archive;
     
     public static void saveRecord(User user, String gameType, GameMemento memento) {
         if (user.isGuest()) {
             return; // 不保存游客的录像
         }
         
-        String userDir = RECORDS_DIR + user.getUsername() + "/";
-        File dir = new File(userDir);
-        if (!dir.exists()) {
-            dir.mkdirs();
-        }
-        
         String timestamp = new java.text.SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-        String filename = userDir + gameType + "_" + timestamp + ".record";
+        GameRecord record = new GameRecord(user.getUsername(), gameType, timestamp, memento);
         
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(filename))) {
-            oos.writeObject(new GameRecord(user.getUsername(), gameType, timestamp, memento));
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                oos.writeObject(record);
+            }
+            
+            SegmentStore store = getArchive();
+            synchronized (store) {
+                // 同一秒内的多局录像加序号区分
+                String key = user.getUsername() + "/" + gameType + "_" + timestamp;
+                String uniqueKey = key;
+                for (int i = 1; store.find(uniqueKey) != null; i++) {
+                    uniqueKey = key + "_" + i;
+                }
+                store.append(uniqueKey, ByteBuffer.wrap(bytes.toByteArray()));
+            }
         } catch (IOException e) {
             System.err.println("保存录像失败: " + e.getMessage());
         }
     }
     
     public static List<GameRecord> getUserRecords(String username) {
+        List<GameRecord> records = loadLegacyRecords(username);
+        
+        try {
+            SegmentStore store = getArchive();
+            for (String key : store.keys(username + "/")) {
+                GameRecord record;
+                try {
+                    record = readRecord(store.read(key));
+                } catch (IOException e) {
+                    // 损坏的录像跳过，不影响其他录像
+                    System.err.println("录像已损坏: " + key);
+                    continue;
+                }
+                if (record != null) {
+                    records.add(record);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("加载录像失败: " + e.getLocalizedMessage());
+        }
+        
+        return records;
+    }
+    
+    /**
+     * 按保存顺序遍历存储中的全部录像，用于统计
+     */
+    public static void forEachRecord(Consumer<GameRecord> visitor) {
+        try {
+            getArchive().scan((key, data) -> {
+                GameRecord record = readRecord(data);
+                if (record != null) {
+                    visitor.accept(record);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("加载录像失败: " + e.getLocalizedMessage());
+        }
+    }
+    
+    private static synchronized SegmentStore getArchive() throws IOException {
+        if (archive == null) {
+            archive = new SegmentStore(Paths.get(ARCHIVE_DIR));
+        }
+        return archive;
+    }
+    
+    private static GameRecord readRecord(ByteBuffer data) {
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (GameRecord) ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("加载录像失败: " + e.getLocalizedMessage());
+            return null;
+        }
+    }
+    
+    // 旧版本每局一个文件的录像
+    private static List<GameRecord> loadLegacyRecords(String username) {
         List<GameRecord> records = new ArrayList<>();
         String userDir = RECORDS_DIR + username + "/";
         File dir = new File(userDir);
@@ -3,7 +3,12 @@ package com.chessplatform.record;
 import com.chessplatform.core.Game;
 import com.chessplatform.model.Board;
 import com.chessplatform.model.Move;
+import com.chessplatform.model.PersistentBoard;
 import com.chessplatform.model.Player;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -12,12 +17,23 @@ import java.util.List;
 public class GameRecorder implements Serializable {
     private static final long serialVersionUID = 1L;
     
+    // 快照在内存中按行共享，存档中仍写成 List<Board>，与旧存档格式一致
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("moveHistory", List.class),
+        new ObjectStreamField("boardSnapshots", List.class),
+        new ObjectStreamField("startTime", LocalDateTime.class),
+        new ObjectStreamField("endTime", LocalDateTime.class),
+        new ObjectStreamField("gameTitle", String.class),
+        new ObjectStreamField("annotations", List.class)
+    };
+    
     private List<Move> moveHistory;          // 完整的走棋记录
-    private List<Board> boardSnapshots;      // 每一步后的棋盘快照（可选，用于快速回放）
+    private List<PersistentBoard> boardSnapshots;  // 部分步骤后的棋盘快照（用于快速回放），相邻快照共用未变化的行
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private String gameTitle;
     private List<String> annotations;        // 注解/评论
+    private transient MoveJournal journal;   // 崩溃恢复用的走法日志，可以没有
     
     public GameRecorder() {
         this.moveHistory = new ArrayList<>();
@@ -29,26 +45,44 @@ public class GameRecorder implements Serializable {
     public void recordMove(Move move, Board currentBoard) {
         move.setMoveNumber(moveHistory.size() + 1);
         moveHistory.add(move);
+        if (journal != null) {
+            journal.append(move);
+        }
         
         // 可选：保存棋盘快照（会增加存储空间）
         if (shouldSaveSnapshot()) {
-            boardSnapshots.add(currentBoard.copy());
+            addSnapshot(currentBoard);
         }
     }
     
     public void recordInitialState(Board initialBoard, Player firstPlayer) {
         // 记录初始状态
         boardSnapshots.clear();
-        boardSnapshots.add(initialBoard.copy());
+        addSnapshot(initialBoard);
         
         // 添加初始注解
         addAnnotation("游戏开始，初始棋盘已设置");
         addAnnotation("先手玩家: " + firstPlayer.getName());
     }
     
+    /**
+     * 悔棋或恢复备忘录后对局只剩前 moveCount 步，录像本身保留全部走法，只通知走法日志
+     */
+    public void recordUndo(int moveCount) {
+        if (journal != null) {
+            journal.truncate(moveCount);
+        }
+    }
+    
     public void recordGameEnd(Game game) {
         this.endTime = LocalDateTime.now();
         
+        // 正常结束的对局不需要恢复
+        if (journal != null) {
+            journal.delete();
+            journal = null;
+        }
+        
         if (game.isGameOver()) {
             Player winner = game.getWinner();
             if (winner != null) {
@@ -63,12 +97,24 @@ public class GameRecorder implements Serializable {
         annotations.add(LocalDateTime.now() + ": " + annotation);
     }
     
+    public void setJournal(MoveJournal journal) {
+        this.journal = journal;
+    }
+    
+    public MoveJournal getJournal() {
+        return journal;
+    }
+    
     public List<Move> getMoveHistory() {
         return new ArrayList<>(moveHistory);
     }
     
     public List<Board> getBoardSnapshots() {
-        return new ArrayList<>(boardSnapshots);
+        List<Board> boards = new ArrayList<>(boardSnapshots.size());
+        for (PersistentBoard snapshot : boardSnapshots) {
+            boards.add(snapshot.toBoard());
+        }
+        return boards;
     }
     
     public int getTotalMoves() {
@@ -84,7 +130,7 @@ public class GameRecorder implements Serializable {
     
     public Board getBoardAtMove(int moveIndex) {
         if (moveIndex >= 0 && moveIndex < boardSnapshots.size()) {
-            return boardSnapshots.get(moveIndex);
+            return boardSnapshots.get(moveIndex).toBoard();
         }
         return null;
     }
@@ -116,6 +162,15 @@ public class GameRecorder implements Serializable {
         return java.time.Duration.between(startTime, LocalDateTime.now()).getSeconds();
     }
     
+    // 新快照由上一个快照派生，只复制变化的行
+    private void addSnapshot(Board board) {
+        if (boardSnapshots.isEmpty()) {
+            boardSnapshots.add(PersistentBoard.of(board));
+        } else {
+            boardSnapshots.add(boardSnapshots.get(boardSnapshots.size() - 1).update(board));
+        }
+    }
+    
     private boolean shouldSaveSnapshot() {
         // 策略：每10步保存一个完整快照，或者关键步骤保存
         // 可以根据需要调整策略
@@ -126,4 +181,34 @@ public class GameRecorder implements Serializable {
     public ReplayController createReplayController() {
         return new ReplayController(this);
     }
+    
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("moveHistory", moveHistory);
+        fields.put("boardSnapshots", getBoardSnapshots());
+        fields.put("startTime", startTime);
+        fields.put("endTime", endTime);
+        fields.put("gameTitle", gameTitle);
+        fields.put("annotations", annotations);
+        out.writeFields();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        moveHistory = (List<Move>) fields.get("moveHistory", null);
+        startTime = (LocalDateTime) fields.get("startTime", null);
+        endTime = (LocalDateTime) fields.get("endTime", null);
+        gameTitle = (String) fields.get("gameTitle", null);
+        annotations = (List<String>) fields.get("annotations", null);
+        
+        // 读入后重新建立快照之间的共享
+        boardSnapshots = new ArrayList<>();
+        List<Board> boards = (List<Board>) fields.get("boardSnapshots", null);
+        if (boards != null) {
+            for (Board board : boards) {
+                addSnapshot(board);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,298 @@
+// record/MoveJournal.java
+package com.chessplatform.record;
+
+import com.chessplatform.core.Game;
+import com.chessplatform.core.GameType;
+import com.chessplatform.games.GameFactory;
+import com.chessplatform.model.Move;
+import com.chessplatform.model.PieceColor;
+import com.chessplatform.model.Player;
+import com.chessplatform.util.FsyncPolicy;
+import com.chessplatform.util.IntList;
+import com.chessplatform.util.SaveFormat;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对局的预写走法日志，用于程序异常退出后恢复未结束的对局
+ * 文件头记录棋类、棋盘大小、游戏模式、双方AI类型和名字，之后 GameRecorder 每记录一步追加两个字节
+ * （编码同 SaveFormat），悔棋追加一条截断记录。
+ * 追加先进入缓冲区，满 flushInterval 条时立即写入文件，否则由后台定时器在 flushMillis 内写出；
+ * 对局正常结束时删除日志，启动时剩下的日志就是未结束的对局
+ */
+public class MoveJournal {
+    public static final String JOURNAL_DIRECTORY = "saves/journal/";
+    private static final String SUFFIX = ".journal";
+    private static final int MAGIC = 0x43504A4C;  // "CPJL"
+    private static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_AI = 1;   // 版本1的文件头没有游戏模式和AI类型
+    private static final short TRUNCATE = -4;     // 截断记录，后跟两个字节的剩余步数
+    private static final int DEFAULT_FLUSH_INTERVAL = 4;
+    private static final long DEFAULT_FLUSH_MILLIS = 1000;
+    private static final AtomicInteger sequence = new AtomicInteger();
+    private static ScheduledExecutorService flusher;    // 所有日志共用的定时写出线程
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1024);
+    private int flushInterval = DEFAULT_FLUSH_INTERVAL;
+    private long flushMillis = DEFAULT_FLUSH_MILLIS;
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.NONE;
+    private int pendingRecords;
+    private boolean closed;
+
+    private MoveJournal(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * 为对局新建日志并挂到它的录像上；对局已有的走法先整体写入
+     */
+    public static MoveJournal start(Game game) throws IOException {
+        Path directory = Paths.get(JOURNAL_DIRECTORY);
+        Files.createDirectories(directory);
+        Path path = directory.resolve(game.getGameType().name().toLowerCase() + "-"
+                + System.currentTimeMillis() + "-" + sequence.incrementAndGet() + SUFFIX);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+        MoveJournal journal = new MoveJournal(path, channel);
+        try {
+            journal.writeHeader(game);
+        } catch (IOException e) {
+            journal.delete();
+            throw e;
+        }
+        for (Move move : game.getMoveHistory()) {
+            journal.append(move);
+        }
+        journal.flush();
+        game.getGameRecorder().setJournal(journal);
+        return journal;
+    }
+
+    public void append(Move move) {
+        put(SaveFormat.encodeMove(move), (short) 0, false);
+    }
+
+    public void truncate(int moveCount) {
+        put(TRUNCATE, (short) moveCount, true);
+    }
+
+    /**
+     * 把缓冲区中的记录写入文件，并按 fsyncPolicy 刷盘
+     */
+    public synchronized void flush() {
+        if (closed) {
+            return;
+        }
+        try {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsyncPolicy != FsyncPolicy.NONE) {
+                channel.force(fsyncPolicy == FsyncPolicy.FULL);
+            }
+        } catch (IOException e) {
+            System.err.println("写入走法日志失败: " + e.getMessage());
+        } finally {
+            buffer.clear();
+            pendingRecords = 0;
+        }
+    }
+
+    /**
+     * 写出剩余记录并关闭，日志文件保留，下次启动时可以恢复
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("关闭走法日志失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 关闭并删除日志，用于对局正常结束或被放弃
+     */
+    public synchronized void delete() {
+        close();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("删除走法日志失败: " + e.getMessage());
+        }
+    }
+
+    public void setFlushInterval(int flushInterval, long flushMillis) {
+        if (flushInterval < 1 || flushMillis < 0) {
+            throw new IllegalArgumentException("刷新间隔必须大于0");
+        }
+        this.flushInterval = flushInterval;
+        this.flushMillis = flushMillis;
+    }
+
+    public void setFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * 未正常结束的对局留下的日志，按修改时间从旧到新排列
+     */
+    public static List<Path> findUnfinished() throws IOException {
+        List<Path> result = new ArrayList<>();
+        Path directory = Paths.get(JOURNAL_DIRECTORY);
+        if (!Files.isDirectory(directory)) {
+            return result;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                result.add(path);
+            }
+        }
+        result.sort((a, b) -> {
+            try {
+                return Files.getLastModifiedTime(a).compareTo(Files.getLastModifiedTime(b));
+            } catch (IOException e) {
+                return a.compareTo(b);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 按日志重建对局：先按截断记录得到最终的走法序列，再在新对局上依次执行。
+     * 末尾写到一半的记录和无法执行的走法之后的内容被忽略
+     */
+    public static Game recover(Path path) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        try {
+            if (data.getInt() != MAGIC) {
+                throw new IOException("不是走法日志: " + path);
+            }
+            byte version = data.get();
+            if (version != VERSION && version != VERSION_WITHOUT_AI) {
+                throw new IOException("不支持的走法日志版本: " + version);
+            }
+            int typeIndex = data.get();
+            if (typeIndex < 0 || typeIndex >= GameType.values().length) {
+                throw new IOException("未知的棋类: " + typeIndex);
+            }
+            int size = data.get();
+            ByteBuffer aiSettings = null;
+            if (version != VERSION_WITHOUT_AI) {
+                aiSettings = data.duplicate();
+                data.position(data.position() + SaveFormat.AI_SETTINGS_SIZE);
+            }
+            String blackName = SaveFormat.getName(data);
+            String whiteName = SaveFormat.getName(data);
+
+            IntList moves = new IntList();
+            while (data.remaining() >= 2) {
+                short record = data.getShort();
+                if (record != TRUNCATE) {
+                    moves.add(record);
+                } else if (data.remaining() >= 2) {
+                    int moveCount = data.getShort();
+                    while (moves.size() > moveCount) {
+                        moves.removeLast();
+                    }
+                }
+            }
+
+            Game game = GameFactory.createGame(GameType.values()[typeIndex], size);
+            game.setPlayers(new Player(blackName, PieceColor.BLACK), new Player(whiteName, PieceColor.WHITE));
+            // AI类型按玩家对象记录，必须在换上新玩家之后设置
+            if (aiSettings != null) {
+                SaveFormat.applyAISettings(aiSettings, game);
+            }
+            for (int i = 0; i < moves.size(); i++) {
+                if (!SaveFormat.applyMove(game, (short) moves.get(i))) {
+                    break;
+                }
+            }
+            return game;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("走法日志已损坏: " + path, e);
+        }
+    }
+
+    private synchronized void put(short record, short argument, boolean hasArgument) {
+        if (closed) {
+            return;
+        }
+        if (buffer.remaining() < 4) {
+            flush();
+        }
+        buffer.putShort(record);
+        if (hasArgument) {
+            buffer.putShort(argument);
+        }
+        pendingRecords++;
+        if (pendingRecords >= flushInterval || flushMillis == 0) {
+            flush();
+        } else if (pendingRecords == 1) {
+            // 缓冲区里的第一条记录，安排定时写出，不必等到下一步棋
+            flusher().schedule(this::flushPending, flushMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void flushPending() {
+        if (pendingRecords > 0) {
+            flush();
+        }
+    }
+
+    private static synchronized ScheduledExecutorService flusher() {
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return flusher;
+    }
+
+    // 文件头按实际大小分配，直接写入文件，不经过记录缓冲区
+    private void writeHeader(Game game) throws IOException {
+        byte[] blackName = SaveFormat.nameBytes(game.getBlackPlayer().getName());
+        byte[] whiteName = SaveFormat.nameBytes(game.getWhitePlayer().getName());
+        ByteBuffer header = ByteBuffer.allocate(4 + 3 + SaveFormat.AI_SETTINGS_SIZE
+                + 2 + blackName.length + 2 + whiteName.length);
+        header.putInt(MAGIC);
+        header.put(VERSION);
+        header.put((byte) game.getGameType().ordinal());
+        header.put((byte) game.getBoard().getSize());
+        SaveFormat.putAISettings(header, game);
+        SaveFormat.putName(header, blackName);
+        SaveFormat.putName(header, whiteName);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+}
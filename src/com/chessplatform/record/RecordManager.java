@@ -71,13 +71,9 @@ public class RecordManager implements GameEventListener {
     }
     
     private void saveRecordForUser(User user, String gameType, GameMemento memento) {
-        // 这里需要调用 GameRecordManager.saveRecord 方法
-        // 由于 GameRecordManager 可能有静态方法，我们先简化实现
         String username = user.getUsername();
         System.out.println("[录像] 为 " + username + " 保存游戏录像: " + gameType);
-        
-        // 实际保存逻辑可以在这里实现
-        // GameRecordManager.saveRecord(user, gameType, memento);
+        GameRecordManager.saveRecord(user, gameType, memento);
     }
     
     private boolean shouldSaveUserRecord(User user) {
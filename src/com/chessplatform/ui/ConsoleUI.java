@@ -9,13 +9,17 @@ import com.chessplatform.games.GameFactory;
 import com.chessplatform.games.gomoku.Gomoku;
 import com.chessplatform.games.reversi.Reversi;
 import com.chessplatform.memento.GameCaretaker;
-import com.chessplatform.memento.GameMemento;
 import com.chessplatform.model.*;
 import com.chessplatform.platform.ChessPlatform;
 import com.chessplatform.record.*;
 import com.chessplatform.stats.StatsManager;
 import com.chessplatform.util.FileUtil;
+import com.chessplatform.util.SaveCatalog;
+import com.chessplatform.util.SaveService;
 import com.chessplatform.util.ValidationUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import javax.swing.SwingUtilities;
 
@@ -38,9 +42,15 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
     private StatsManager statsManager;
     private RecordManager recordManager;
     private boolean isLoginMenu;
+    private SaveService saveService;           // 后台写存档，不阻塞输入
+    private MoveJournal journal;               // 当前对局的走法日志，用于崩溃恢复
+    private List<SaveCatalog.Entry> lastListing = new ArrayList<>();  // 最近一次 list 的结果，load 可以用序号
+    private int lastListingOffset;
+    private static final int SAVE_PAGE_SIZE = 20;
     
     public ConsoleUI() {
         this.caretaker = new GameCaretaker();
+        this.saveService = new SaveService();
         this.showHelp = true;
         this.scanner = new Scanner(System.in);
         this.running = true;
@@ -69,6 +79,10 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
             handleLoginMenu(choice);
         }
         
+        if (running) {
+            recoverUnfinishedGame();
+        }
+        
         while (running) {
             try {
                 if (showHelp) {
@@ -91,6 +105,19 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
         }
         
         scanner.close();
+        stopPondering();
+        
+        // 未结束的对局保留走法日志，下次启动时可以恢复
+        if (journal != null) {
+            journal.close();
+        }
+        
+        // 等待尚未写完的存档
+        try {
+            saveService.shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         System.out.println("感谢使用棋类对战平台!");
     }
     
@@ -153,7 +180,7 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
                 displayGameStatus();
                 break;
             case "list":
-                listSaveFiles();
+                listSaveFiles(parts);
                 break;
             case "exit":
                 running = false;
@@ -224,6 +251,7 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
             }
             
             // 创建游戏
+            stopPondering();
             currentGame = GameFactory.createGame(gameType, size);
             caretaker.clear();
             
@@ -248,6 +276,7 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
             
             // 开始游戏
             caretaker.clear();
+            startJournal(currentGame);
             System.out.println("开始新游戏: " + gameType.getChineseName() + 
                              " " + size + "x" + size);
             System.out.println("游戏模式: " + gameMode.getDescription());
@@ -265,9 +294,11 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
             }
             update(currentGame);
             
-            // 如果黑方是AI，自动开始思考
+            // 如果黑方是AI，自动开始思考；否则AI在玩家思考时后台搜索
             if (currentGame.isAIMove()) {
                 startAITurn();
+            } else {
+                startPondering();
             }
             
         } catch (IllegalArgumentException e) {
@@ -349,11 +380,41 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
                     } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
                     }
+                } else {
+                    startPondering();
                 }
             }
         }
     }
 
+    // 人机对战轮到玩家时，对手的AI在后台继续搜索；其他情况由 Gomoku 停止后台搜索
+    // 只有五子棋持有AI实例，围棋和黑白棋的AI走法由游戏内置规则直接给出，没有可以后台搜索的AI
+    private void startPondering() {
+        if (currentGame instanceof Gomoku
+                && currentGame.getAITypeForPlayer(getOpponent(currentGame.getCurrentPlayer())) == AIType.MCTS) {
+            ((Gomoku) currentGame).startPondering();
+        }
+    }
+    
+    private Player getOpponent(Player player) {
+        return player == currentGame.getBlackPlayer() ? currentGame.getWhitePlayer() : currentGame.getBlackPlayer();
+    }
+    
+    // 读档或重新开始后：轮到AI时开始思考，否则让AI在后台搜索
+    private void resumeAI() {
+        if (currentGame.isAIMove()) {
+            startAITurn();
+        } else {
+            startPondering();
+        }
+    }
+    
+    private void stopPondering() {
+        if (currentGame instanceof Gomoku) {
+            ((Gomoku) currentGame).stopPondering();
+        }
+    }
+    
     // 添加黑白棋提示方法
     private void displayReversiHint() {
         System.out.println("\n=== 黑白棋规则提示 ===");
@@ -492,6 +553,8 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
                 update(currentGame);
                 if (currentGame.isAIMove()) {
                     startAITurn();
+                } else {
+                    startPondering();
                 }
             } else {
                 System.out.println("落子失败，位置不合法");
@@ -529,10 +592,12 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
             return;
         }
         
+        stopPondering();
         UndoCommand undoCmd = new UndoCommand(currentGame, caretaker);
         if (undoCmd.execute()) {
             System.out.println("悔棋成功");
             update(currentGame);
+            startPondering();
         } else {
             System.out.println("无法悔棋");
         }
@@ -556,6 +621,7 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
             ResignCommand resignCmd = new ResignCommand(
                 currentGame, currentGame.getCurrentPlayer());
             if (resignCmd.execute()) {
+                stopPondering();
                 System.out.println("认输成功");
                 update(currentGame);
             }
@@ -577,12 +643,17 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
         
         try {
             String filename = ValidationUtil.validateFilename(parts[1]);
-            SaveCommand saveCmd = new SaveCommand(currentGame, filename);
+            SaveCommand saveCmd = new SaveCommand(currentGame, filename, saveService);
             if (saveCmd.execute()) {
-                System.out.println("游戏已保存到: " + filename);
-            } else {
-                System.out.println("保存失败");
+                System.out.println("正在后台保存: " + filename);
             }
+            saveCmd.getCompletion().whenComplete((savedFile, error) -> {
+                if (error == null) {
+                    System.out.println("游戏已保存到: " + savedFile);
+                } else {
+                    System.out.println("保存失败: " + error.getMessage());
+                }
+            });
         } catch (IllegalArgumentException e) {
             System.out.println("错误: " + e.getMessage());
         }
@@ -590,13 +661,22 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
     
     private void handleLoadCommand(String[] parts) {
         if (parts.length < 2) {
-            System.out.println("用法: load [filename]");
+            System.out.println("用法: load [filename|序号]");
             return;
         }
         
         try {
             String filename = ValidationUtil.validateFilename(parts[1]);
+            
+            // 纯数字且在最近一次列表范围内时按序号加载
+            if (parts[1].matches("\\d+")) {
+                int index = Integer.parseInt(parts[1]) - 1 - lastListingOffset;
+                if (index >= 0 && index < lastListing.size()) {
+                    filename = lastListing.get(index).getFilename();
+                }
+            }
             if (!FileUtil.saveFileExists(filename)) {
+                SaveCatalog.getDefault().remove(filename);   // 存档在程序外被删除
                 System.out.println("文件不存在: " + filename);
                 return;
             }
@@ -610,16 +690,18 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
                 }
             }
             
-            // 创建一个临时游戏对象用于加载
-            Game tempGame = GameFactory.createGame(GameType.GOMOKU, 15);
-            LoadCommand loadCmd = new LoadCommand(tempGame, filename);
+            // 棋类和大小由存档决定
+            LoadCommand loadCmd = new LoadCommand(currentGame, filename);
             
+            stopPondering();
             if (loadCmd.execute()) {
-                currentGame = tempGame;
+                currentGame = loadCmd.getGame();
                 caretaker.clear();
+                startJournal(currentGame);
                 
                 System.out.println("游戏已加载: " + filename);
                 update(currentGame);
+                resumeAI();
             } else {
                 System.out.println("加载失败");
             }
@@ -642,11 +724,21 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
             GameType gameType = currentGame.getGameType();
             int size = currentGame.getBoard().getSize();
             
+            // 保留双方玩家和AI设置
+            Game previous = currentGame;
+            stopPondering();
             currentGame = GameFactory.createGame(gameType, size);
+            currentGame.setPlayers(new Player(previous.getBlackPlayer().getUser(), PieceColor.BLACK),
+                    new Player(previous.getWhitePlayer().getUser(), PieceColor.WHITE));
+            currentGame.setGameMode(previous.getGameMode(),
+                    previous.getAITypeForPlayer(previous.getBlackPlayer()),
+                    previous.getAITypeForPlayer(previous.getWhitePlayer()));
             caretaker.clear();
+            startJournal(currentGame);
             
             System.out.println("游戏已重新开始");
             update(currentGame);
+            resumeAI();
         } else {
             System.out.println("重新开始已取消");
         }
@@ -673,6 +765,7 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
             
             AIType aiType = AIType.fromString(aiTypeStr);
             currentGame.setAITypeForPlayer(player, aiType);
+            startJournal(currentGame);   // 日志文件头记录AI类型，设置变化后重新开始日志
             
             System.out.println(player.getName() + " AI类型设置为: " + aiType.getDescription());
             
@@ -734,6 +827,7 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
             }
             
             method.invoke(currentGame, gameMode, blackAI, whiteAI);
+            startJournal(currentGame);   // 日志文件头记录游戏模式，设置变化后重新开始日志
             
             // 更新显示
             update(currentGame);
@@ -873,17 +967,50 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
         }
     }
     
-    private void listSaveFiles() {
-        String[] files = FileUtil.listSaveFiles();
-        if (files == null || files.length == 0) {
-            System.out.println("没有找到存档文件");
-            return;
+    // list [棋类|玩家名] [页码]，只读存档索引，不打开存档文件
+    private void listSaveFiles(String[] parts) {
+        GameType typeFilter = null;
+        String playerFilter = null;
+        int page = 1;
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].matches("\\d+")) {
+                page = Math.max(1, Integer.parseInt(parts[i]));
+            } else {
+                try {
+                    typeFilter = GameType.fromString(parts[i]);
+                } catch (IllegalArgumentException e) {
+                    playerFilter = parts[i];
+                }
+            }
         }
         
-        System.out.println("\n=== 存档列表 ===");
-        for (int i = 0; i < files.length; i++) {
-            System.out.println((i + 1) + ". " + files[i]);
+        GameType type = typeFilter;
+        String player = playerFilter;
+        java.util.function.Predicate<SaveCatalog.Entry> filter = entry ->
+                (type == null || entry.getGameType() == type) && (player == null || entry.hasPlayer(player));
+        
+        SaveCatalog catalog = SaveCatalog.getDefault();
+        int total = catalog.count(filter);
+        if (total == 0) {
+            System.out.println("没有找到存档文件");
+            return;
         }
+        int pages = (total + SAVE_PAGE_SIZE - 1) / SAVE_PAGE_SIZE;
+        page = Math.min(page, pages);
+        lastListingOffset = (page - 1) * SAVE_PAGE_SIZE;
+        lastListing = catalog.query(filter, lastListingOffset, SAVE_PAGE_SIZE);
+        
+        java.text.SimpleDateFormat format = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm");
+        System.out.println("\n=== 存档列表 (第 " + page + "/" + pages + " 页，共 " + total + " 个) ===");
+        for (int i = 0; i < lastListing.size(); i++) {
+            SaveCatalog.Entry entry = lastListing.get(i);
+            System.out.println((lastListingOffset + i + 1) + ". " + entry.getFilename() + "  " +
+                    entry.getGameType().getChineseName() + " " + entry.getBoardSize() + "x" + entry.getBoardSize() + "  " +
+                    entry.getBlackName() + " vs " + entry.getWhiteName() + "  " +
+                    entry.getMoveCount() + "步  " + entry.getResultText() + "  " +
+                    format.format(new java.util.Date(entry.getTimestamp())));
+        }
+        System.out.println("可以用 load [序号] 加载列表中的存档");
         System.out.println("===============\n");
     }
     
@@ -927,8 +1054,8 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
             "║                                                        ║\n" +
             "║ 存档管理:                                              ║\n" +
             "║   save [filename]      - 保存游戏                      ║\n" +
-            "║   load [filename]      - 加载游戏                      ║\n" +
-            "║   list                 - 列出所有存档                  ║\n" +
+            "║   load [filename|序号] - 加载游戏                      ║\n" +
+            "║   list [过滤] [页码]   - 分页列出存档                  ║\n" +
             "║                                                        ║\n" +
             "║ 系统设置:                                              ║\n" +
             "║   stats [on|off]       - 开启/关闭战绩统计            ║\n" +
@@ -941,6 +1068,65 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
         showHelp = false;
     }
     
+    // 换下的对局不再需要恢复，删除它的日志；game 为 null 时只删除
+    private void startJournal(Game game) {
+        if (journal != null) {
+            journal.delete();
+            journal = null;
+        }
+        if (game == null) {
+            return;
+        }
+        try {
+            journal = MoveJournal.start(game);
+        } catch (IOException e) {
+            System.out.println("无法创建走法日志，本局不支持崩溃恢复: " + e.getMessage());
+        }
+    }
+    
+    // 启动时检查上次异常退出留下的走法日志，可以恢复最近的一局
+    private void recoverUnfinishedGame() {
+        List<Path> journals;
+        try {
+            journals = MoveJournal.findUnfinished();
+        } catch (IOException e) {
+            System.out.println("读取走法日志失败: " + e.getMessage());
+            return;
+        }
+        if (journals.isEmpty()) {
+            return;
+        }
+        
+        System.out.print("发现 " + journals.size() + " 局未正常结束的对局，恢复最近的一局吗? (yes/no): ");
+        String confirmation = scanner.nextLine().trim().toLowerCase();
+        if (confirmation.equals("yes") || confirmation.equals("y")) {
+            Path latest = journals.get(journals.size() - 1);
+            try {
+                Game game = MoveJournal.recover(latest);
+                currentGame = game;
+                caretaker.clear();
+                registerEventListeners(currentGame);
+                if (currentGame instanceof com.chessplatform.core.Subject) {
+                    ((com.chessplatform.core.Subject) currentGame).addObserver(this);
+                }
+                startJournal(currentGame);
+                System.out.println("已恢复对局，共 " + currentGame.getMoveCount() + " 步");
+                update(currentGame);
+            } catch (IOException e) {
+                System.out.println("恢复失败: " + e.getMessage());
+            }
+        }
+        
+        // 已恢复的对局有了新的日志，其余的不再保留
+        for (Path path : journals) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                System.out.println("删除走法日志失败: " + e.getMessage());
+            }
+        }
+    }
+    
     private void displayWelcome() {
         System.out.println("\n" +
             "╔════════════════════════════════════════════════════════╗\n" +
@@ -960,22 +1146,19 @@ public class ConsoleUI implements com.chessplatform.core.Observer, GameEventList
         try {
             String filename = ValidationUtil.validateFilename(parts[1]);
             if (!FileUtil.saveFileExists(filename)) {
+                SaveCatalog.getDefault().remove(filename);   // 存档在程序外被删除
                 System.out.println("文件不存在: " + filename);
                 return;
             }
             
-            // 加载游戏
-            GameMemento loadedState = FileUtil.loadGame(filename);
-            Game game = loadedState.getSavedState();
-            
-            // 应用录像数据
-            if (loadedState.getGameRecorder() != null) {
-                loadedState.applyRecorderToGame(game);
-            }
+            // 加载游戏（录像随对局一起读入）
+            Game game = FileUtil.loadGame(filename);
             
             // 开始回放
             replayPlatform.startReplay(game);
             isReplayMode = true;
+            stopPondering();
+            startJournal(null);
             currentGame = game;
             
             System.out.println("进入回放模式");
@@ -1,11 +1,19 @@
 // util/FileUtil.java
 package com.chessplatform.util;
 
+import com.chessplatform.core.Game;
 import com.chessplatform.memento.GameMemento;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 public class FileUtil {
-    private static final String SAVE_DIRECTORY = "saves/";
+    static final String SAVE_DIRECTORY = "saves/";
     
     static {
         // 确保保存目录存在
@@ -15,20 +23,69 @@ public class FileUtil {
         }
     }
     
-    public static void saveGame(GameMemento memento, String filename) throws IOException {
-        String filepath = SAVE_DIRECTORY + filename;
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new FileOutputStream(filepath))) {
-            oos.writeObject(memento);
+    /**
+     * 以二进制格式（见 SaveFormat）保存对局
+     */
+    public static void saveGame(Game game, String filename) throws IOException {
+        SaveCatalog.Entry entry = SaveCatalog.Entry.of(filename, game, System.currentTimeMillis());
+        writeSaveFile(filename, SaveFormat.encode(game), FsyncPolicy.NONE);
+        SaveCatalog.getDefault().put(entry);
+    }
+    
+    /**
+     * 先写同目录下的临时文件，再原子重命名为目标文件，
+     * 写到一半失败时原有存档保持不变
+     */
+    public static void writeSaveFile(String filename, ByteBuffer data, FsyncPolicy fsyncPolicy)
+            throws IOException {
+        Path target = savePath(filename);
+        Path temp = savePath(filename + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            if (fsyncPolicy != FsyncPolicy.NONE) {
+                channel.force(fsyncPolicy == FsyncPolicy.FULL);
+            }
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
         }
     }
     
-    public static GameMemento loadGame(String filename) 
+    /**
+     * 读取存档；旧版本的 Java 序列化存档同样可以读取
+     */
+    public static Game loadGame(String filename) 
             throws IOException, ClassNotFoundException {
-        String filepath = SAVE_DIRECTORY + filename;
+        try (FileChannel channel = FileChannel.open(savePath(filename), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            
+            if (buffer.remaining() >= 4 && buffer.getInt(0) == SaveFormat.MAGIC) {
+                return SaveFormat.decode(buffer);
+            }
+            return loadLegacyGame(buffer);
+        }
+    }
+    
+    // 旧格式：序列化的 GameMemento
+    private static Game loadLegacyGame(ByteBuffer buffer) throws IOException, ClassNotFoundException {
         try (ObjectInputStream ois = new ObjectInputStream(
-                new FileInputStream(filepath))) {
-            return (GameMemento) ois.readObject();
+                new ByteArrayInputStream(buffer.array(), 0, buffer.limit()))) {
+            GameMemento memento = (GameMemento) ois.readObject();
+            Game game = memento.getSavedState();
+            memento.applyRecorderToGame(game);
+            return game;
         }
     }
     
@@ -40,4 +97,8 @@ public class FileUtil {
         File dir = new File(SAVE_DIRECTORY);
         return dir.list((d, name) -> name.endsWith(".save"));
     }
-}
\ No newline at end of file
+    
+    private static Path savePath(String filename) {
+        return Paths.get(SAVE_DIRECTORY, filename);
+    }
+}
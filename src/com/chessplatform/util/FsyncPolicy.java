@@ -0,0 +1,21 @@
+// util/FsyncPolicy.java
+package com.chessplatform.util;
+
+/**
+ * 写存档后是否强制刷盘
+ */
+public enum FsyncPolicy {
+    NONE("不刷盘"),            // 交给操作系统，断电可能丢失最近的存档
+    DATA("只刷数据"),          // FileChannel.force(false)
+    FULL("数据和元数据都刷");   // FileChannel.force(true)
+
+    private final String description;
+
+    FsyncPolicy(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,322 @@
+// util/SaveCatalog.java
+package com.chessplatform.util;
+
+import com.chessplatform.core.Game;
+import com.chessplatform.core.GameType;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 存档目录索引：每个存档的棋类、大小、双方、步数、时间和结果
+ * 每次保存向索引文件追加一条记录，同一存档以最后一条为准；打开时被覆盖的记录过多就整体重写。
+ * 列表和筛选只读索引，不打开存档文件；索引文件不存在时扫描一次存档目录重建。
+ * 索引以程序自己的保存为准：在程序外修改或复制进来的存档不会反映到索引中（删除索引文件可重建），
+ * 被删除的存档在打开索引或读档发现文件不存在时移除
+ */
+public class SaveCatalog {
+    private static final String INDEX_FILE = "catalog.idx";
+    private static final int MAGIC = 0x43504358;  // "CPCX"
+    private static final byte VERSION = 1;
+
+    private static SaveCatalog defaultCatalog;
+
+    private final Path directory;
+    private final Path indexPath;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private int recordCount;       // 索引文件中的记录数，包括被覆盖的
+
+    /**
+     * 一个存档的摘要
+     */
+    public static class Entry {
+        private final String filename;
+        private final GameType gameType;
+        private final int boardSize;
+        private final String blackName;
+        private final String whiteName;
+        private final int moveCount;
+        private final long timestamp;
+        private final byte result;    // 编码同 SaveFormat
+
+        public Entry(String filename, GameType gameType, int boardSize, String blackName, String whiteName,
+                     int moveCount, long timestamp, byte result) {
+            this.filename = filename;
+            this.gameType = gameType;
+            this.boardSize = boardSize;
+            this.blackName = blackName;
+            this.whiteName = whiteName;
+            this.moveCount = moveCount;
+            this.timestamp = timestamp;
+            this.result = result;
+        }
+
+        public static Entry of(String filename, Game game, long timestamp) {
+            return new Entry(filename, game.getGameType(), game.getBoard().getSize(),
+                    game.getBlackPlayer().getName(), game.getWhitePlayer().getName(),
+                    game.getMoveCount(), timestamp, SaveFormat.resultOf(game));
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public GameType getGameType() {
+            return gameType;
+        }
+
+        public int getBoardSize() {
+            return boardSize;
+        }
+
+        public String getBlackName() {
+            return blackName;
+        }
+
+        public String getWhiteName() {
+            return whiteName;
+        }
+
+        public int getMoveCount() {
+            return moveCount;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public String getResultText() {
+            return SaveFormat.resultText(result);
+        }
+
+        public boolean hasPlayer(String name) {
+            return blackName.equalsIgnoreCase(name) || whiteName.equalsIgnoreCase(name);
+        }
+    }
+
+    public SaveCatalog(String directory) {
+        this.directory = Paths.get(directory);
+        this.indexPath = this.directory.resolve(INDEX_FILE);
+    }
+
+    public static synchronized SaveCatalog getDefault() {
+        if (defaultCatalog == null) {
+            defaultCatalog = new SaveCatalog(FileUtil.SAVE_DIRECTORY);
+            try {
+                defaultCatalog.open();
+            } catch (IOException e) {
+                System.err.println("读取存档索引失败: " + e.getMessage());
+            }
+        }
+        return defaultCatalog;
+    }
+
+    /**
+     * 读入索引；不存在或无法识别时扫描存档重建，
+     * 末尾有写到一半的记录、被覆盖的记录超过一半或有存档已被删除时重写
+     */
+    public synchronized void open() throws IOException {
+        entries.clear();
+        recordCount = 0;
+        if (!Files.exists(indexPath)) {
+            rebuild();
+            return;
+        }
+
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+        boolean torn = false;
+        try {
+            if (data.getInt() != MAGIC || data.get() != VERSION) {
+                rebuild();
+                return;
+            }
+            while (data.hasRemaining()) {
+                int start = data.position();
+                try {
+                    readRecord(data);
+                } catch (BufferUnderflowException e) {
+                    // 末尾写到一半的记录，留在文件里会和之后追加的记录连在一起，需要重写
+                    data.position(start);
+                    torn = true;
+                    break;
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            rebuild();
+            return;
+        }
+
+        boolean removed = removeMissing();
+        if (torn || removed || recordCount > 2 * entries.size()) {
+            rewrite();
+        }
+    }
+
+    public synchronized void put(Entry entry) {
+        entries.remove(entry.filename);
+        entries.put(entry.filename, entry);
+        append(encode(entry));
+    }
+
+    /**
+     * 移除存档的记录，用于发现存档文件已不存在时；记录格式只能追加，所以重写索引
+     */
+    public synchronized void remove(String filename) {
+        if (entries.remove(filename) == null) {
+            return;
+        }
+        try {
+            rewrite();
+        } catch (IOException e) {
+            System.err.println("更新存档索引失败: " + e.getMessage());
+        }
+    }
+
+    public synchronized Entry get(String filename) {
+        return entries.get(filename);
+    }
+
+    public synchronized int count(Predicate<Entry> filter) {
+        int count = 0;
+        for (Entry entry : entries.values()) {
+            if (filter.test(entry)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 按时间从新到旧筛选，跳过前 offset 条后最多返回 limit 条
+     */
+    public synchronized List<Entry> query(Predicate<Entry> filter, int offset, int limit) {
+        List<Entry> matched = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (filter.test(entry)) {
+                matched.add(entry);
+            }
+        }
+        matched.sort(Comparator.comparingLong(Entry::getTimestamp).reversed());
+        int from = Math.min(Math.max(offset, 0), matched.size());
+        int to = Math.min(from + Math.max(limit, 0), matched.size());
+        return new ArrayList<>(matched.subList(from, to));
+    }
+
+    // 列一次存档目录，去掉文件已不存在的记录；有记录被去掉时返回 true
+    private boolean removeMissing() {
+        String[] names = directory.toFile().list();
+        Set<String> existing = names != null ? new HashSet<>(Arrays.asList(names)) : Collections.emptySet();
+        return entries.keySet().removeIf(filename -> !existing.contains(filename));
+    }
+
+    // 扫描存档目录，逐个读取存档生成索引；只在索引丢失时执行
+    private void rebuild() throws IOException {
+        File[] files = directory.toFile().listFiles((d, name) -> name.endsWith(".save"));
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    Game game = FileUtil.loadGame(file.getName());
+                    Entry entry = Entry.of(file.getName(), game, file.lastModified());
+                    entries.put(entry.filename, entry);
+                } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                    System.err.println("无法读取存档 " + file.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+        rewrite();
+    }
+
+    // 只写当前有效的记录，先写临时文件再替换
+    private void rewrite() throws IOException {
+        Files.createDirectories(directory);
+        Path temp = directory.resolve(INDEX_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header());
+            for (Entry entry : entries.values()) {
+                writeFully(channel, encode(entry));
+            }
+        }
+        Files.move(temp, indexPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        recordCount = entries.size();
+    }
+
+    private void append(ByteBuffer record) {
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            if (channel.size() == 0) {
+                writeFully(channel, header());
+            }
+            writeFully(channel, record);
+            recordCount++;
+        } catch (IOException e) {
+            System.err.println("更新存档索引失败: " + e.getMessage());
+        }
+    }
+
+    private void readRecord(ByteBuffer data) {
+        String filename = SaveFormat.getName(data);
+        int typeIndex = data.get();
+        int boardSize = data.get();
+        String blackName = SaveFormat.getName(data);
+        String whiteName = SaveFormat.getName(data);
+        int moveCount = data.getInt();
+        long timestamp = data.getLong();
+        byte result = data.get();
+        recordCount++;
+
+        entries.remove(filename);
+        entries.put(filename, new Entry(filename, GameType.values()[typeIndex], boardSize,
+                blackName, whiteName, moveCount, timestamp, result));
+    }
+
+    private static ByteBuffer encode(Entry entry) {
+        byte[] filename = entry.filename.getBytes(StandardCharsets.UTF_8);
+        byte[] blackName = SaveFormat.nameBytes(entry.blackName);
+        byte[] whiteName = SaveFormat.nameBytes(entry.whiteName);
+        ByteBuffer buffer = ByteBuffer.allocate(
+                3 * 2 + filename.length + blackName.length + whiteName.length + 2 + 4 + 8 + 1);
+        SaveFormat.putName(buffer, filename);
+        buffer.put((byte) entry.gameType.ordinal());
+        buffer.put((byte) entry.boardSize);
+        SaveFormat.putName(buffer, blackName);
+        SaveFormat.putName(buffer, whiteName);
+        buffer.putInt(entry.moveCount);
+        buffer.putLong(entry.timestamp);
+        buffer.put(entry.result);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer buffer = ByteBuffer.allocate(5);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
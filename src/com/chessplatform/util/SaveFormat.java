@@ -0,0 +1,228 @@
+// util/SaveFormat.java
+package com.chessplatform.util;
+
+import com.chessplatform.core.AIType;
+import com.chessplatform.core.Game;
+import com.chessplatform.core.GameMode;
+import com.chessplatform.core.GameType;
+import com.chessplatform.games.GameFactory;
+import com.chessplatform.model.Board;
+import com.chessplatform.model.Move;
+import com.chessplatform.model.PackedMove;
+import com.chessplatform.model.PieceColor;
+import com.chessplatform.model.Player;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 二进制存档格式
+ * 文件头：魔数、版本、棋类、棋盘大小、走棋方、结果、游戏模式和双方AI类型（版本2起）、双方名字；
+ * 之后是走法列表，每步两个字节（PackedMove，虚着 -1，认输 -2/-3 区分黑白）。
+ * 读取时在新建的对局上重新走一遍，再核对文件头中的走棋方和结果
+ */
+public final class SaveFormat {
+    public static final int MAGIC = 0x43505356;  // "CPSV"
+    public static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_AI = 1;   // 版本1没有游戏模式和AI类型，读取时按玩家对战处理
+
+    // 游戏模式和双方AI类型
+    public static final int AI_SETTINGS_SIZE = 3;
+
+    // 魔数、版本、棋类、大小、走棋方、结果、AI设置、两个名字长度和步数，不含名字和走法
+    private static final int FIXED_SIZE = 4 + 5 * 1 + AI_SETTINGS_SIZE + 2 * 2 + 4;
+
+    private static final short RESIGN_BLACK = -2;
+    private static final short RESIGN_WHITE = -3;
+
+    private static final byte RESULT_ONGOING = 0;
+    private static final byte RESULT_BLACK = 1;
+    private static final byte RESULT_WHITE = 2;
+    private static final byte RESULT_DRAW = 3;
+
+    public static final int MAX_NAME_BYTES = 0xFFFF;   // 名称长度用两个字节保存
+
+    private SaveFormat() {
+    }
+
+    public static ByteBuffer encode(Game game) {
+        byte[] blackName = nameBytes(game.getBlackPlayer().getName());
+        byte[] whiteName = nameBytes(game.getWhitePlayer().getName());
+        List<Move> moves = game.getMoveHistory();
+
+        ByteBuffer buffer = ByteBuffer.allocate(
+                FIXED_SIZE + blackName.length + whiteName.length + 2 * moves.size());
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.put((byte) game.getGameType().ordinal());
+        buffer.put((byte) game.getBoard().getSize());
+        buffer.put(Board.toCell(game.getCurrentPlayer().getColor()));
+        buffer.put(resultOf(game));
+        putAISettings(buffer, game);
+        putName(buffer, blackName);
+        putName(buffer, whiteName);
+
+        buffer.putInt(moves.size());
+        for (Move move : moves) {
+            buffer.putShort(encodeMove(move));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    public static Game decode(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("不是二进制存档");
+            }
+            byte version = buffer.get();
+            if (version != VERSION && version != VERSION_WITHOUT_AI) {
+                throw new IOException("不支持的存档版本: " + version);
+            }
+            int typeIndex = buffer.get();
+            if (typeIndex < 0 || typeIndex >= GameType.values().length) {
+                throw new IOException("未知的棋类: " + typeIndex);
+            }
+            GameType gameType = GameType.values()[typeIndex];
+            int size = buffer.get();
+            byte sideToMove = buffer.get();
+            byte result = buffer.get();
+            int aiSettings = buffer.position();
+            if (version != VERSION_WITHOUT_AI) {
+                buffer.position(aiSettings + AI_SETTINGS_SIZE);
+            }
+            String blackName = getName(buffer);
+            String whiteName = getName(buffer);
+
+            Game game = GameFactory.createGame(gameType, size);
+            game.setPlayers(new Player(blackName, PieceColor.BLACK), new Player(whiteName, PieceColor.WHITE));
+            // AI类型按玩家对象记录，必须在换上新玩家之后设置
+            if (version != VERSION_WITHOUT_AI) {
+                ByteBuffer settings = buffer.duplicate();
+                settings.position(aiSettings);
+                applyAISettings(settings, game);
+            }
+
+            int moveCount = buffer.getInt();
+            for (int i = 0; i < moveCount; i++) {
+                if (!applyMove(game, buffer.getShort())) {
+                    throw new IOException("存档第 " + (i + 1) + " 步无法执行");
+                }
+            }
+
+            if (Board.toCell(game.getCurrentPlayer().getColor()) != sideToMove || resultOf(game) != result) {
+                throw new IOException("存档内容与走法记录不一致");
+            }
+            return game;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("存档已损坏", e);
+        }
+    }
+
+    /**
+     * 单步走法的两字节编码，走法日志也使用同样的编码
+     */
+    public static short encodeMove(Move move) {
+        if (move.isPass()) {
+            return PackedMove.PASS;
+        }
+        if (move.isResign()) {
+            return move.getPlayer().getColor() == PieceColor.BLACK ? RESIGN_BLACK : RESIGN_WHITE;
+        }
+        return (short) PackedMove.of(move.getRow(), move.getCol());
+    }
+
+    // 在对局上执行一步编码后的走法
+    public static boolean applyMove(Game game, short move) {
+        switch (move) {
+            case PackedMove.PASS:
+                return game.pass();
+            case RESIGN_BLACK:
+                return game.resign(game.getBlackPlayer());
+            case RESIGN_WHITE:
+                return game.resign(game.getWhitePlayer());
+            default:
+                return game.makeMove(PackedMove.row(move), PackedMove.col(move));
+        }
+    }
+
+    static byte resultOf(Game game) {
+        if (!game.isGameOver()) {
+            return RESULT_ONGOING;
+        }
+        Player winner = game.getWinner();
+        if (winner == null) {
+            return RESULT_DRAW;
+        }
+        return winner.getColor() == PieceColor.BLACK ? RESULT_BLACK : RESULT_WHITE;
+    }
+
+    static String resultText(byte result) {
+        switch (result) {
+            case RESULT_BLACK:
+                return "黑胜";
+            case RESULT_WHITE:
+                return "白胜";
+            case RESULT_DRAW:
+                return "平局";
+            default:
+                return "进行中";
+        }
+    }
+
+    /**
+     * 游戏模式和双方AI类型，各占一个字节，走法日志也使用
+     */
+    public static void putAISettings(ByteBuffer buffer, Game game) {
+        buffer.put((byte) game.getGameMode().ordinal());
+        buffer.put((byte) game.getAITypeForPlayer(game.getBlackPlayer()).ordinal());
+        buffer.put((byte) game.getAITypeForPlayer(game.getWhitePlayer()).ordinal());
+    }
+
+    // 读取 putAISettings 写入的内容并设置到 game 上，game 需要已经设置好玩家
+    public static void applyAISettings(ByteBuffer buffer, Game game) throws IOException {
+        GameMode mode = valueOf(GameMode.values(), buffer.get(), "游戏模式");
+        AIType blackAI = valueOf(AIType.values(), buffer.get(), "AI类型");
+        AIType whiteAI = valueOf(AIType.values(), buffer.get(), "AI类型");
+        game.setGameMode(mode, blackAI, whiteAI);
+    }
+
+    private static <T> T valueOf(T[] values, byte ordinal, String what) throws IOException {
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException("未知的" + what + ": " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * 名称的 UTF-8 编码，超过 MAX_NAME_BYTES 时在字符边界处截断
+     */
+    public static byte[] nameBytes(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_NAME_BYTES) {
+            return bytes;
+        }
+        int length = MAX_NAME_BYTES;
+        while ((bytes[length] & 0xC0) == 0x80) {
+            length--;    // 不从多字节字符中间截断
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    public static void putName(ByteBuffer buffer, byte[] name) {
+        if (name.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("名称过长: " + name.length + " 字节");
+        }
+        buffer.putShort((short) name.length);
+        buffer.put(name);
+    }
+
+    public static String getName(ByteBuffer buffer) {
+        byte[] name = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+}
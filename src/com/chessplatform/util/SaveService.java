@@ -0,0 +1,133 @@
+// util/SaveService.java
+package com.chessplatform.util;
+
+import com.chessplatform.core.Game;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 后台存档服务
+ * 调用方线程只负责把对局编码成字节，写文件在单独的后台线程中完成；
+ * 队列有上限，同一存档位尚未写出的请求合并为一次，只写最新的内容，
+ * 合并的请求共用同一个完成句柄
+ */
+public class SaveService {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final int capacity;
+    private final Map<String, PendingSave> pending = new LinkedHashMap<>();  // 按提交顺序写出
+    private final Thread writer;
+    private volatile FsyncPolicy fsyncPolicy = FsyncPolicy.DATA;
+    private boolean shutdown;
+
+    public SaveService() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SaveService(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("队列容量必须大于0");
+        }
+        this.capacity = capacity;
+        this.writer = new Thread(this::writeLoop, "save-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * 提交一次存档，立即返回；句柄在文件写好并重命名后完成，失败时以异常完成。
+     * 队列已满或服务已关闭时返回的句柄直接以异常完成
+     */
+    public CompletableFuture<String> submit(Game game, String filename) {
+        ByteBuffer data = SaveFormat.encode(game);
+        SaveCatalog.Entry entry = SaveCatalog.Entry.of(filename, game, System.currentTimeMillis());
+        synchronized (this) {
+            PendingSave save = pending.get(filename);
+            if (save != null) {
+                save.data = data;
+                save.entry = entry;
+                return save.completion;
+            }
+            if (shutdown || pending.size() >= capacity) {
+                CompletableFuture<String> rejected = new CompletableFuture<>();
+                rejected.completeExceptionally(new IOException(shutdown ? "存档服务已关闭" : "存档队列已满"));
+                return rejected;
+            }
+            save = new PendingSave(filename, data, entry);
+            pending.put(filename, save);
+            notifyAll();
+            return save.completion;
+        }
+    }
+
+    public void setFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 不再接受新的存档，等已提交的全部写完后返回
+     */
+    public void shutdown() throws InterruptedException {
+        synchronized (this) {
+            shutdown = true;
+            notifyAll();
+        }
+        writer.join();
+    }
+
+    private void writeLoop() {
+        while (true) {
+            PendingSave save;
+            synchronized (this) {
+                while (pending.isEmpty() && !shutdown) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                // 取出后同一存档位的新请求重新排队，不会改动正在写的内容
+                Iterator<PendingSave> it = pending.values().iterator();
+                save = it.next();
+                it.remove();
+            }
+
+            try {
+                FileUtil.writeSaveFile(save.filename, save.data, fsyncPolicy);
+                SaveCatalog.getDefault().put(save.entry);
+                save.completion.complete(save.filename);
+            } catch (IOException | RuntimeException e) {
+                save.completion.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static class PendingSave {
+        final String filename;
+        final CompletableFuture<String> completion = new CompletableFuture<>();
+        ByteBuffer data;
+        SaveCatalog.Entry entry;    // 写成功后记入存档索引
+
+        PendingSave(String filename, ByteBuffer data, SaveCatalog.Entry entry) {
+            this.filename = filename;
+            this.data = data;
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+// util/SegmentStore.java
+package com.chessplatform.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * 只追加的分段存储
+ * 数据写在固定大小的段文件中，段文件整体映射为 MappedByteBuffer，
+ * 每条记录是 [长度][校验和][键][内容]，记录的 id 由段号和段内偏移组成，按 id 读取时直接返回映射区的只读切片。
+ * 另有一个只追加的偏移索引（键 -> id，同一个键以最后一条为准）；
+ * 打开时从索引中最后一条记录之后顺序扫描，补上写入记录后来不及写索引的部分。
+ * 映射区的页面崩溃时以任意顺序落盘，长度写上了不代表内容也写上了，
+ * 所以恢复、扫描和读取都先核对 CRC32 校验和（覆盖长度、键和内容），不一致的记录视为不存在
+ */
+public class SegmentStore implements Closeable {
+    public static final int DEFAULT_SEGMENT_SIZE = 16 << 20;
+
+    private static final String INDEX_FILE = "index.dat";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final int RECORD_HEADER = 4 + 4 + 2;   // 记录长度、校验和、键长度
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<FileChannel> channels = new ArrayList<>();
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final Map<String, Long> index = new LinkedHashMap<>();
+    private FileChannel indexChannel;
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.NONE;
+    private int writeOffset;      // 最后一段中下一条记录的位置
+
+    public SegmentStore(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public SegmentStore(Path directory, int segmentSize) throws IOException {
+        if (segmentSize <= RECORD_HEADER) {
+            throw new IllegalArgumentException("段大小过小");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+
+        for (int i = 0; Files.exists(segmentPath(i)); i++) {
+            mapSegment(i);
+        }
+        if (segments.isEmpty()) {
+            mapSegment(0);
+        }
+        indexChannel = FileChannel.open(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long lastIndexed = loadIndex();
+        recoverTail(lastIndexed);
+    }
+
+    /**
+     * 追加一条记录并返回它的 id；同一个键再次写入时索引指向新记录
+     */
+    public synchronized long append(String key, ByteBuffer payload) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > SaveFormat.MAX_NAME_BYTES) {
+            throw new IOException("键过长: " + keyBytes.length + " 字节");
+        }
+        int length = RECORD_HEADER + keyBytes.length + payload.remaining();
+        if (length > segmentSize) {
+            throw new IOException("记录超过段大小: " + length);
+        }
+        if (writeOffset + length > segmentSize) {
+            mapSegment(segments.size());
+            writeOffset = 0;
+        }
+
+        int segment = segments.size() - 1;
+        ByteBuffer target = segments.get(segment).duplicate();
+        target.position(writeOffset);
+        target.putInt(length);
+        target.putInt(0);
+        target.putShort((short) keyBytes.length);
+        target.put(keyBytes);
+        target.put(payload);
+        target.putInt(writeOffset + 4, checksum(target, writeOffset, length));
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            segments.get(segment).force();
+        }
+
+        long id = toId(segment, writeOffset);
+        writeOffset += length;
+        writeIndexEntry(key, id);
+        index.put(key, id);
+        return id;
+    }
+
+    /**
+     * 按 id 读取记录内容，返回映射区的只读切片，不复制数据
+     */
+    public synchronized ByteBuffer read(long id) throws IOException {
+        return read(id, null);
+    }
+
+    // 键对应的最新记录，没有时返回 null
+    public synchronized Long find(String key) {
+        return index.get(key);
+    }
+
+    public synchronized ByteBuffer read(String key) throws IOException {
+        Long id = index.get(key);
+        return id == null ? null : read(id, key);
+    }
+
+    // 以 prefix 开头的键，按写入顺序排列
+    public synchronized List<String> keys(String prefix) {
+        List<String> result = new ArrayList<>();
+        for (String key : index.keySet()) {
+            if (key.startsWith(prefix)) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按写入顺序扫描全部记录（包括同一个键的旧记录），用于统计分析
+     */
+    public synchronized void scan(BiConsumer<String, ByteBuffer> visitor) {
+        for (int segment = 0; segment < segments.size(); segment++) {
+            int end = (segment == segments.size() - 1) ? writeOffset : segmentSize;
+            int offset = 0;
+            while (offset + RECORD_HEADER <= end) {
+                int length = recordLength(segment, offset);
+                if (length < 0) {
+                    break;    // 段尾未使用或损坏的部分
+                }
+                ByteBuffer record = segments.get(segment).duplicate();
+                record.position(offset + 8);
+                byte[] key = new byte[record.getShort() & 0xFFFF];
+                record.get(key);
+                record.limit(offset + length);
+                visitor.accept(new String(key, StandardCharsets.UTF_8), record.slice().asReadOnlyBuffer());
+                offset += length;
+            }
+        }
+    }
+
+    public void setFsyncPolicy(FsyncPolicy fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        for (FileChannel channel : channels) {
+            channel.close();
+        }
+        indexChannel.close();
+    }
+
+    private void mapSegment(int segment) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channels.add(channel);
+        segments.add(channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+    }
+
+    // 读入偏移索引，返回最后一条被索引的记录 id，没有时返回 -1
+    private long loadIndex() throws IOException {
+        long size = indexChannel.size();
+        ByteBuffer data = ByteBuffer.allocate((int) size);
+        while (data.hasRemaining()) {
+            if (indexChannel.read(data, data.position()) < 0) {
+                break;
+            }
+        }
+        data.flip();
+
+        long lastIndexed = -1;
+        int validEnd = 0;
+        try {
+            while (data.hasRemaining()) {
+                long id = data.getLong();
+                String key = SaveFormat.getName(data);
+                index.put(key, id);
+                lastIndexed = Math.max(lastIndexed, id);
+                validEnd = data.position();
+            }
+        } catch (BufferUnderflowException e) {
+            // 末尾写到一半的索引项，截掉
+            indexChannel.truncate(validEnd);
+        }
+        indexChannel.position(validEnd);
+        return lastIndexed;
+    }
+
+    // 从最后一条被索引的记录之后扫描，补全索引并确定写入位置
+    private void recoverTail(long lastIndexed) throws IOException {
+        int segment = 0;
+        int offset = 0;
+        if (lastIndexed >= 0) {
+            segment = (int) (lastIndexed >>> 32);
+            offset = (int) lastIndexed;
+            int length = recordLength(segment, offset);
+            if (length < 0) {
+                // 索引写上了而记录没有完整落盘，从这条记录的位置继续写
+                index.values().removeIf(id -> id == lastIndexed);
+            } else {
+                offset += length;
+            }
+        }
+
+        while (true) {
+            int length = recordLength(segment, offset);
+            if (length > 0) {
+                ByteBuffer record = segments.get(segment).duplicate();
+                record.position(offset + 8);
+                byte[] key = new byte[record.getShort() & 0xFFFF];
+                record.get(key);
+                String name = new String(key, StandardCharsets.UTF_8);
+                long id = toId(segment, offset);
+                writeIndexEntry(name, id);
+                index.put(name, id);
+                offset += length;
+            } else if (segment < segments.size() - 1) {
+                segment++;
+                offset = 0;
+            } else {
+                break;
+            }
+        }
+        writeOffset = offset;
+    }
+
+    // id 对应的记录内容；expectedKey 不为 null 时还要求记录的键一致
+    private ByteBuffer read(long id, String expectedKey) throws IOException {
+        int segment = (int) (id >>> 32);
+        int offset = (int) id;
+        if (segment < 0 || segment >= segments.size() || offset < 0) {
+            throw new IOException("无效的记录 id: " + id);
+        }
+        int length = recordLength(segment, offset);
+        if (length < 0) {
+            throw new IOException("记录不存在或已损坏: " + id);
+        }
+        ByteBuffer record = segments.get(segment).duplicate();
+        record.position(offset + 8);
+        byte[] key = new byte[record.getShort() & 0xFFFF];
+        record.get(key);
+        if (expectedKey != null && !expectedKey.equals(new String(key, StandardCharsets.UTF_8))) {
+            throw new IOException("记录与索引不一致: " + expectedKey);
+        }
+        record.limit(offset + length);
+        return record.slice().asReadOnlyBuffer();
+    }
+
+    // offset 处完整且校验和一致的记录长度，否则返回 -1
+    private int recordLength(int segment, int offset) {
+        if (offset + RECORD_HEADER > segmentSize) {
+            return -1;
+        }
+        MappedByteBuffer buffer = segments.get(segment);
+        int length = buffer.getInt(offset);
+        if (length < RECORD_HEADER || length > segmentSize - offset) {
+            return -1;
+        }
+        int keyLength = buffer.getShort(offset + 8) & 0xFFFF;
+        if (RECORD_HEADER + keyLength > length || buffer.getInt(offset + 4) != checksum(buffer, offset, length)) {
+            return -1;
+        }
+        return length;
+    }
+
+    // 校验和覆盖长度字段和校验和之后的全部内容
+    private static int checksum(ByteBuffer segment, int offset, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer part = segment.duplicate();
+        part.limit(offset + 4);
+        part.position(offset);
+        crc.update(part);
+        part.limit(offset + length);
+        part.position(offset + 8);
+        crc.update(part);
+        return (int) crc.getValue();
+    }
+
+    private void writeIndexEntry(String key, long id) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer entry = ByteBuffer.allocate(8 + 2 + keyBytes.length);
+        entry.putLong(id);
+        SaveFormat.putName(entry, keyBytes);
+        entry.flip();
+        while (entry.hasRemaining()) {
+            indexChannel.write(entry);
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s%05d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static long toId(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+}
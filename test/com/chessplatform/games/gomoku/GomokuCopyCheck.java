@@ -0,0 +1,137 @@
+// test/com/chessplatform/games/gomoku/GomokuCopyCheck.java
+package com.chessplatform.games.gomoku;
+
+import com.chessplatform.core.AIType;
+import com.chessplatform.core.Game;
+import com.chessplatform.core.GameMode;
+import com.chessplatform.model.Board;
+import com.chessplatform.model.Move;
+import com.chessplatform.model.PieceColor;
+import com.chessplatform.model.Player;
+import com.chessplatform.model.Point;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 结构化复制与序列化复制的一致性检查：棋盘、哈希、候选点、走棋历史和玩家都相同，
+ * 副本继续走棋也与序列化副本一致，且不影响原对局；最后打印两种复制方式每秒的复制次数
+ */
+public class GomokuCopyCheck {
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            Gomoku game = new Gomoku(15);
+            game.setPlayers(new Player("玩家", PieceColor.BLACK), new Player("电脑", PieceColor.WHITE));
+            game.setGameMode(GameMode.PLAYER_VS_AI, AIType.NONE, AIType.RULE);
+            int moves = random.nextInt(60);
+            for (int i = 0; i < moves && !game.isGameOver(); i++) {
+                playRandom(game, random);
+            }
+
+            long hashBefore = game.getPositionHash();
+            Game structural = game.copy();
+            Game serialized = serializedCopy(game);
+            compare(structural, serialized, "复制后");
+
+            // 两个副本走同样的棋，结果仍一致，原对局不受影响
+            for (int i = 0; i < 10 && !structural.isGameOver(); i++) {
+                Point move = structural.getValidMoves().get(random.nextInt(structural.getValidMoves().size()));
+                check(structural.makeMove(move.getX(), move.getY()), "副本走棋");
+                check(serialized.makeMove(move.getX(), move.getY()), "序列化副本走棋");
+            }
+            compare(structural, serialized, "继续走棋后");
+            check(game.getPositionHash() == hashBefore && game.getMoveHistory().size() <= moves, "原对局被修改");
+        }
+
+        Gomoku game = new Gomoku(15);
+        for (int i = 0; i < 40 && !game.isGameOver(); i++) {
+            playRandom(game, random);
+        }
+        System.out.printf("结构化复制: %.0f 次/秒%n", copiesPerSecond(game, false));
+        System.out.printf("序列化复制: %.0f 次/秒%n", copiesPerSecond(game, true));
+        System.out.println("GomokuCopyCheck 通过");
+    }
+
+    private static void playRandom(Game game, Random random) {
+        List<Point> valid = game.getValidMoves();
+        Point move = valid.get(random.nextInt(valid.size()));
+        game.makeMove(move.getX(), move.getY());
+    }
+
+    private static Game serializedCopy(Game game) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(game);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (Game) in.readObject();
+        }
+    }
+
+    private static void compare(Game a, Game b, String when) {
+        Board boardA = a.getBoard();
+        Board boardB = b.getBoard();
+        check(boardA.getSize() == boardB.getSize(), when + " 棋盘大小");
+        for (int row = 0; row < boardA.getSize(); row++) {
+            for (int col = 0; col < boardA.getSize(); col++) {
+                check(boardA.getColor(row, col) == boardB.getColor(row, col), when + " 棋盘");
+            }
+        }
+        check(a.getPositionHash() == b.getPositionHash(), when + " 哈希");
+        check(((Gomoku) a).getCandidateMoves(0).equals(((Gomoku) b).getCandidateMoves(0)), when + " 候选点");
+        check(a.getValidMoves().equals(b.getValidMoves()), when + " 合法落点");
+
+        List<Move> historyA = a.getMoveHistory();
+        List<Move> historyB = b.getMoveHistory();
+        check(historyA.size() == historyB.size(), when + " 历史长度");
+        for (int i = 0; i < historyA.size(); i++) {
+            Move moveA = historyA.get(i);
+            Move moveB = historyB.get(i);
+            check(moveA.getRow() == moveB.getRow() && moveA.getCol() == moveB.getCol()
+                    && moveA.getPlayer().getColor() == moveB.getPlayer().getColor(), when + " 历史第" + i + "步");
+        }
+
+        comparePlayer(a.getBlackPlayer(), b.getBlackPlayer(), when + " 黑方");
+        comparePlayer(a.getWhitePlayer(), b.getWhitePlayer(), when + " 白方");
+        check(a.getCurrentPlayer().getColor() == b.getCurrentPlayer().getColor(), when + " 当前玩家");
+        check(a.getCurrentPlayer() == (a.getCurrentPlayer().getColor() == PieceColor.BLACK
+                ? a.getBlackPlayer() : a.getWhitePlayer()), when + " 当前玩家应为副本自己的玩家");
+        check(a.getGameMode() == b.getGameMode(), when + " 游戏模式");
+        check(a.getAITypeForPlayer(a.getBlackPlayer()) == b.getAITypeForPlayer(b.getBlackPlayer())
+                && a.getAITypeForPlayer(a.getWhitePlayer()) == b.getAITypeForPlayer(b.getWhitePlayer()), when + " AI类型");
+        check(a.isGameOver() == b.isGameOver(), when + " 结束状态");
+        check((a.getWinner() == null) == (b.getWinner() == null)
+                && (a.getWinner() == null || a.getWinner().getColor() == b.getWinner().getColor()), when + " 胜者");
+    }
+
+    private static void comparePlayer(Player a, Player b, String what) {
+        check(a.getName().equals(b.getName()) && a.getColor() == b.getColor()
+                && a.hasResigned() == b.hasResigned(), what);
+    }
+
+    private static double copiesPerSecond(Game game, boolean serialized) throws Exception {
+        int copies = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            Game copy = serialized ? serializedCopy(game) : game.copy();
+            if (copy.getMoveCount() != game.getMoveCount()) {
+                throw new AssertionError("复制结果不一致");
+            }
+            copies++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < 500_000_000L);
+        return copies * 1e9 / elapsed;
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError("检查失败: " + what);
+        }
+    }
+}
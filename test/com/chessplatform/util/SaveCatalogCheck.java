@@ -0,0 +1,59 @@
+// test/com/chessplatform/util/SaveCatalogCheck.java
+package com.chessplatform.util;
+
+import com.chessplatform.core.GameType;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 存档索引末尾有写到一半的记录时，重新打开后追加的记录仍能正确读出
+ */
+public class SaveCatalogCheck {
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("catalog-check");
+        Path index = directory.resolve("catalog.idx");
+        for (String name : new String[] {"a.save", "b.save", "c.save"}) {
+            Files.createFile(directory.resolve(name));   // 索引只检查存档文件是否存在
+        }
+
+        SaveCatalog catalog = new SaveCatalog(directory.toString());
+        catalog.open();
+        catalog.put(entry("a.save", 10));
+        long afterFirst = Files.size(index);
+        catalog.put(entry("b.save", 20));
+        long afterSecond = Files.size(index);
+
+        // 模拟第二条记录只写了一半就崩溃
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.WRITE)) {
+            channel.truncate(afterFirst + (afterSecond - afterFirst) / 2);
+        }
+
+        SaveCatalog reopened = new SaveCatalog(directory.toString());
+        reopened.open();
+        check(reopened.count(e -> true) == 1 && reopened.get("a.save") != null, "丢弃写到一半的记录");
+        reopened.put(entry("c.save", 30));
+
+        SaveCatalog again = new SaveCatalog(directory.toString());
+        again.open();
+        check(again.count(e -> true) == 2, "记录数");
+        check(again.get("a.save") != null && again.get("a.save").getMoveCount() == 10, "第一条记录");
+        check(again.get("c.save") != null && again.get("c.save").getMoveCount() == 30
+                && again.get("c.save").getBlackName().equals("黑方c.save"), "之后追加的记录");
+
+        System.out.println("SaveCatalogCheck 通过");
+    }
+
+    private static SaveCatalog.Entry entry(String filename, int moveCount) {
+        return new SaveCatalog.Entry(filename, GameType.GOMOKU, 15, "黑方" + filename, "白方" + filename,
+                moveCount, System.currentTimeMillis(), (byte) 0);
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError("检查失败: " + what);
+        }
+    }
+}
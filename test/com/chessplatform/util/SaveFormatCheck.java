@@ -0,0 +1,68 @@
+// test/com/chessplatform/util/SaveFormatCheck.java
+package com.chessplatform.util;
+
+import com.chessplatform.core.AIType;
+import com.chessplatform.core.Game;
+import com.chessplatform.core.GameMode;
+import com.chessplatform.games.gomoku.Gomoku;
+import com.chessplatform.model.PieceColor;
+import com.chessplatform.model.Player;
+import com.chessplatform.model.Point;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 二进制存档的往返检查：人机对战的游戏模式和双方AI类型在保存、读取后保持不变
+ */
+public class SaveFormatCheck {
+    public static void main(String[] args) throws IOException {
+        Gomoku game = new Gomoku(15);
+        game.setPlayers(new Player("玩家", PieceColor.BLACK), new Player("电脑", PieceColor.WHITE));
+        game.setGameMode(GameMode.PLAYER_VS_AI, AIType.NONE, AIType.RULE);
+        game.makeMove(7, 7);
+        game.makeMove(7, 8);
+        game.makeMove(8, 8);
+
+        Game loaded = SaveFormat.decode(SaveFormat.encode(game));
+        check(loaded.getGameMode() == GameMode.PLAYER_VS_AI, "游戏模式");
+        check(loaded.getAITypeForPlayer(loaded.getBlackPlayer()) == AIType.NONE, "黑方AI类型");
+        check(loaded.getAITypeForPlayer(loaded.getWhitePlayer()) == AIType.RULE, "白方AI类型");
+        check(loaded.getMoveHistory().size() == 3, "步数");
+        check(loaded.getBoard().getZobristHash() == game.getBoard().getZobristHash(), "棋盘");
+
+        // 轮到白方（AI），AI可以正常走棋；走完后轮到玩家
+        check(loaded.isAIMove(), "白方应由AI走棋");
+        Point move = ((Gomoku) loaded).getAIMove();
+        check(move != null && loaded.makeMove(move.getX(), move.getY()), "AI走棋");
+        check(!loaded.isAIMove(), "黑方应由玩家走棋");
+
+        // 玩家对战的存档读取后双方都不是AI
+        Gomoku pvp = new Gomoku(15);
+        pvp.makeMove(7, 7);
+        Game loadedPvp = SaveFormat.decode(SaveFormat.encode(pvp));
+        check(loadedPvp.getGameMode() == GameMode.PLAYER_VS_PLAYER && !loadedPvp.isAIMove(), "玩家对战");
+
+        // 超长名称按字符边界截断，不破坏后面的内容
+        StringBuilder longName = new StringBuilder("a");   // 错开一个字节，使截断位置落在字符中间
+        for (int i = 0; i < 30000; i++) {
+            longName.append('棋');   // UTF-8 中占3个字节
+        }
+        Gomoku named = new Gomoku(15);
+        named.setPlayers(new Player(longName.toString(), PieceColor.BLACK), new Player("白方", PieceColor.WHITE));
+        named.makeMove(7, 7);
+        Game loadedNamed = SaveFormat.decode(SaveFormat.encode(named));
+        String blackName = loadedNamed.getBlackPlayer().getName();
+        check(blackName.length() == 1 + (SaveFormat.MAX_NAME_BYTES - 1) / 3
+                && longName.toString().startsWith(blackName), "超长名称截断");
+        check(loadedNamed.getWhitePlayer().getName().equals("白方") && loadedNamed.getMoveHistory().size() == 1,
+                "超长名称之后的内容");
+
+        System.out.println("SaveFormatCheck 通过");
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError("检查失败: " + what);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+// test/com/chessplatform/util/SegmentStoreCheck.java
+package com.chessplatform.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 分段存储的崩溃恢复检查：长度已落盘而内容没有落盘的记录不会被恢复和读出，
+ * 之后写入的记录覆盖它的位置，重新打开后仍然正确
+ */
+public class SegmentStoreCheck {
+    private static final int SEGMENT_SIZE = 4096;
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("segment-check");
+        long lastId;
+        try (SegmentStore store = new SegmentStore(directory, SEGMENT_SIZE)) {
+            store.append("a", text("第一条"));
+            store.append("b", text("第二条"));
+            lastId = store.append("c", text("第三条"));
+        }
+
+        // 模拟崩溃：最后一条记录的内容没有落盘，索引也没来得及写
+        Path segment = directory.resolve("segment-00000.dat");
+        corrupt(segment, (int) lastId + 14);
+        truncateLastIndexEntry(directory.resolve("index.dat"), "c");
+
+        try (SegmentStore store = new SegmentStore(directory, SEGMENT_SIZE)) {
+            check(store.find("c") == null, "损坏的记录不应恢复");
+            check("第二条".equals(read(store, "b")), "完整的记录");
+            store.append("d", text("第四条"));
+        }
+
+        try (SegmentStore store = new SegmentStore(directory, SEGMENT_SIZE)) {
+            check(store.find("c") == null, "损坏的记录不应恢复");
+            check("第一条".equals(read(store, "a")) && "第四条".equals(read(store, "d")), "之后写入的记录");
+            int[] count = new int[1];
+            store.scan((key, data) -> count[0]++);
+            check(count[0] == 3, "扫描到的记录数");
+        }
+
+        // 索引指向的记录损坏时，按键读取报错而不是返回错误的内容
+        long badId;
+        try (SegmentStore store = new SegmentStore(directory, SEGMENT_SIZE)) {
+            badId = store.find("a");
+        }
+        corrupt(segment, (int) badId + 12);
+        try (SegmentStore store = new SegmentStore(directory, SEGMENT_SIZE)) {
+            try {
+                store.read("a");
+                throw new AssertionError("检查失败: 读取损坏的记录应报错");
+            } catch (IOException expected) {
+                // 预期的异常
+            }
+            check("第四条".equals(read(store, "d")), "其他记录不受影响");
+        }
+
+        System.out.println("SegmentStoreCheck 通过");
+    }
+
+    private static ByteBuffer text(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(SegmentStore store, String key) throws IOException {
+        ByteBuffer data = store.read(key);
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // 翻转 position 处的一个字节
+    private static void corrupt(Path file, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, position);
+            one.put(0, (byte) ~one.get(0));
+            one.rewind();
+            channel.write(one, position);
+        }
+    }
+
+    // 去掉索引文件中最后一项（键为 key）
+    private static void truncateLastIndexEntry(Path index, String key) throws IOException {
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - (8 + 2 + key.getBytes(StandardCharsets.UTF_8).length));
+        }
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError("检查失败: " + what);
+        }
+    }
+}